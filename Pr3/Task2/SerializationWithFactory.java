@@ -1,4 +1,8 @@
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 
 // Інтерфейс для відображення результатів
@@ -24,6 +28,14 @@ class Person implements Serializable, Displayable {
         System.out.println("Age: " + age);
         System.out.println("Password: " + (password != null ? password : "[Not saved]"));
     }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
 }
 
 // Фабричний інтерфейс
@@ -38,8 +50,81 @@ class ConcretePersonFactory implements PersonFactory {
     }
 }
 
+// Збереження осіб записами фіксованого формату: кожна особа пишеться й читається окремо,
+// без серіалізації всього списку. Пароль у файл не потрапляє, як і transient-поле.
+class PersonCodec {
+    private static final int MAGIC = 0x50534e53; // "PSNS"
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte KIND_PERSON = 2; // Той самий код запису, що й у пізніших роботах
+    private static final byte END_OF_STREAM = -1;
+    private static final int NULL_STRING = -1;
+
+    public static void writeAll(String filename, List<Person> persons) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            for (Person person : persons) {
+                out.writeByte(KIND_PERSON);
+                writeString(out, person.getName());
+                out.writeInt(person.getAge());
+            }
+            out.writeByte(END_OF_STREAM);
+        }
+    }
+
+    public static List<Person> readAll(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл не містить записів осіб: " + filename);
+            }
+            List<Person> persons = new ArrayList<>();
+            for (byte kind = in.readByte(); kind != END_OF_STREAM; kind = in.readByte()) {
+                if (kind != KIND_PERSON) {
+                    throw new IOException("Невідомий тип запису: " + kind);
+                }
+                String name = readString(in);
+                persons.add(new Person(name, in.readInt(), null));
+            }
+            return persons;
+        }
+    }
+
+    // Рядок зберігається як кількість байтів UTF-8 (NULL_STRING для null) і самі байти
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Некоректна довжина рядка: " + length);
+        }
+        // Читаємо частинами: довжина з пошкодженого файлу не змусить одразу виділити гігабайти
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.min(length, BUFFER_SIZE));
+        byte[] chunk = new byte[Math.min(length, BUFFER_SIZE)];
+        for (int left = length; left > 0; left -= chunk.length) {
+            int count = Math.min(left, chunk.length);
+            in.readFully(chunk, 0, count);
+            bytes.write(chunk, 0, count);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
+
 public class SerializationWithFactory {
-    private static final String FILE_NAME = "persons.ser";
+    private static final String FILE_NAME = "persons.bin"; // Записи PersonCodec замість серіалізованого списку
+    private static final String LEGACY_FILE_NAME = "persons.ser"; // Файл, збережений попередньою версією
     private static List<Person> personsList = new ArrayList<>();
 
     public static void main(String[] args) {
@@ -65,17 +150,34 @@ public class SerializationWithFactory {
     }
 
     private static void saveToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(personsList);
+        try {
+            PersonCodec.writeAll(FILE_NAME, personsList);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     private static void loadFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            personsList = (List<Person>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        if (!new File(FILE_NAME).exists() && new File(LEGACY_FILE_NAME).exists()) {
+            loadLegacyFile();
+            return;
+        }
+        try {
+            personsList = PersonCodec.readAll(FILE_NAME);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Список, записаний через ObjectOutputStream до появи PersonCodec
+    private static void loadLegacyFile() {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(LEGACY_FILE_NAME))) {
+            List<Person> loaded = new ArrayList<>();
+            for (Object person : (List<?>) ois.readObject()) {
+                loaded.add((Person) person);
+            }
+            personsList = loaded;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
             e.printStackTrace();
         }
     }
@@ -1,28 +1,174 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
 import java.util.*;
 import java.util.Scanner;
+import java.util.function.DoubleConsumer;
 
 interface ComputationResultDisplay {          //Інтерфейс для відображення результатів
     void display(List<Double> results);
+    void display(List<Double> results, int offset, int limit); // Сторінка: до limit результатів з позиції offset
+    void display(Iterator<Double> results, int limit);          // Перші limit результатів потоку
 }
 
-class TextResultDisplay implements ComputationResultDisplay {  //Відображення у вигляді простого тексту
+//Спільна логіка відображення: виводяться лише рядки потрібної сторінки, кожен форматується в момент запису.
+//Для списків з довільним доступом (як DoubleResultStore.asList()) сторінка береться через subList,
+//тож, наприклад, кінець списку з десятків мільйонів результатів показується за час, що залежить лише від limit.
+abstract class PagedResultDisplay implements ComputationResultDisplay {
     public void display(List<Double> results) {
-        for (double result : results) {
-            System.out.println("Computation Result: " + result);
+        display(results, 0, results.size());
+    }
+
+    public void display(List<Double> results, int offset, int limit) {
+        int from = Math.max(0, Math.min(offset, results.size()));
+        int to = from + Math.max(0, Math.min(limit, results.size() - from));
+        render(results.subList(from, to).iterator(), from, to - from, results.size());
+    }
+
+    public void display(Iterator<Double> results, int limit) {
+        render(results, 0, limit, -1);
+    }
+
+    // Куди виводити; за замовчуванням стандартний вивід
+    protected OutputSink openSink() {
+        return OutputSink.console();
+    }
+
+    protected void writeHeader(OutputSink sink) {}
+    protected abstract void writeRow(StringBuilder line, double result);
+    protected void writeFooter(OutputSink sink) {}
+
+    // total < 0 - загальна кількість невідома (потік)
+    private void render(Iterator<Double> results, int firstIndex, int limit, int total) {
+        OutputSink sink = openSink();
+        writeHeader(sink);
+        int shown = 0;
+        while (shown < limit && results.hasNext()) {
+            writeRow(sink.builder(), results.next());
+            sink.newLine();
+            shown++;
         }
+        writeFooter(sink);
+        if (total >= 0 && shown < total) {
+            sink.println("Показано " + (shown == 0 ? "0-0" : (firstIndex + 1) + "-" + (firstIndex + shown)) + " з " + total);
+        }
+        sink.flush();
     }
 }
 
-class TableResultDisplay implements ComputationResultDisplay { //Відображення у вигляді таблиці
-    public void display(List<Double> results) {
-        System.out.println("+----------------+");
-        System.out.println("|   Результати   |");
-        System.out.println("+----------------+");
-        for (double result : results) {
-            System.out.printf("| %14.2f |\n", result);
+class TextResultDisplay extends PagedResultDisplay {  //Відображення у вигляді простого тексту
+    protected void writeRow(StringBuilder line, double result) {
+        line.append("Computation Result: ").append(result);
+    }
+}
+
+class TableResultDisplay extends PagedResultDisplay { //Відображення у вигляді таблиці
+    private Formatter formatter; // Форматує прямо в буфер виводу
+    private StringBuilder formatterTarget;
+
+    protected void writeHeader(OutputSink sink) {
+        sink.println("+----------------+");
+        sink.println("|   Результати   |");
+        sink.println("+----------------+");
+    }
+
+    protected void writeRow(StringBuilder line, double result) {
+        if (line != formatterTarget) {
+            formatter = new Formatter(line);
+            formatterTarget = line;
+        }
+        formatter.format("| %14.2f |", result);
+    }
+
+    protected void writeFooter(OutputSink sink) {
+        sink.println("+----------------+");
+    }
+}
+
+// Вивід великими блоками: рядки накопичуються у StringBuilder, а при заповненні блоку кодуються
+// в байти й одним викликом записуються в канал стандартного виводу.
+// Так таблиця з мільйонами рядків не проходить через синхронізований System.out з автоскиданням кожного рядка.
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Вивід у канал, яким володіє викликач (наприклад, для перевірки виводу в тестах)
+    public static OutputSink to(WritableByteChannel channel, Charset charset) {
+        return new OutputSink(channel, charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
         }
-        System.out.println("+----------------+");
+        bytes.clear();
     }
 }
  
@@ -44,69 +190,498 @@ abstract class ComputationData implements Serializable {  //Абстрактни
     public void compute(double additionalValue) {
         this.result += additionalValue;
     }
+
+    // Повторне використання об'єкта з новими операндами (пакетний режим без алокацій)
+    public void setParams(double param1, double param2) {
+        this.param1 = param1;
+        this.param2 = param2;
+    }
+
+    // Пакетне обчислення count елементів. Підкласи перевизначають метод власним циклом,
+    // тож виклик операції всередині циклу мономорфний і JIT може його вбудувати
+    public void computeBatch(double[] params1, double[] params2, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            setParams(params1[i], params2[i]);
+            compute();
+            out[i] = result;
+        }
+    }
 }
 
 //Додавання
 class AdditionComputation extends ComputationData {
     public AdditionComputation(double param1, double param2) { super(param1, param2); }
     public void compute() { result = param1 + param2; }
+
+    public void computeBatch(double[] params1, double[] params2, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = params1[i] + params2[i];
+        }
+    }
 }
 
 //Віднімання
 class SubtractionComputation extends ComputationData {
     public SubtractionComputation(double param1, double param2) { super(param1, param2); }
     public void compute() { result = param1 - param2; }
+
+    public void computeBatch(double[] params1, double[] params2, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = params1[i] - params2[i];
+        }
+    }
 }
 
 //Множення
 class MultiplicationComputation extends ComputationData {
     public MultiplicationComputation(double param1, double param2) { super(param1, param2); }
     public void compute() { result = param1 * param2; }
+
+    public void computeBatch(double[] params1, double[] params2, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = params1[i] * params2[i];
+        }
+    }
 }
 
 //Ділення
 class DivisionComputation extends ComputationData {
     public DivisionComputation(double param1, double param2) { super(param1, param2); }
     public void compute() { result = (param2 != 0) ? param1 / param2 : Double.NaN; }
+
+    public void computeBatch(double[] params1, double[] params2, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (params2[i] != 0) ? params1[i] / params2[i] : Double.NaN;
+        }
+    }
 }
 
 //Фабрика обчислень
 interface ComputationFactory {
     ComputationData createComputation(double param1, double param2);
+    String getSymbol(); // Символ операції, за яким фабрика реєструється
 }
 
 class AdditionComputationFactory implements ComputationFactory {
     public ComputationData createComputation(double param1, double param2) { return new AdditionComputation(param1, param2); }
+    public String getSymbol() { return "+"; }
 }
 
 class SubtractionComputationFactory implements ComputationFactory {
     public ComputationData createComputation(double param1, double param2) { return new SubtractionComputation(param1, param2); }
+    public String getSymbol() { return "-"; }
 }
 
 class MultiplicationComputationFactory implements ComputationFactory {
     public ComputationData createComputation(double param1, double param2) { return new MultiplicationComputation(param1, param2); }
+    public String getSymbol() { return "*"; }
 }
 
 class DivisionComputationFactory implements ComputationFactory {
     public ComputationData createComputation(double param1, double param2) { return new DivisionComputation(param1, param2); }
+    public String getSymbol() { return "/"; }
+}
+
+//Реєстр фабрик за символом операції: фабрики не мають стану, тому для кожного символу є один спільний екземпляр.
+//Додаткові операції підключаються через ServiceLoader (файл META-INF/services/ComputationFactory на classpath).
+//Реєстр заповнюється лише під час ініціалізації класу й далі не змінюється, тому пошук не потребує синхронізації.
+class ComputationRegistry {
+    private static final Map<String, ComputationFactory> FACTORIES = new LinkedHashMap<>();
+
+    static {
+        register(new AdditionComputationFactory());
+        register(new SubtractionComputationFactory());
+        register(new MultiplicationComputationFactory());
+        register(new DivisionComputationFactory());
+        for (ComputationFactory factory : ServiceLoader.load(ComputationFactory.class)) {
+            if (!register(factory)) { // Дублікат не повинен зробити клас реєстру непридатним
+                System.err.println("Операцію " + factory.getSymbol() + " з " + factory.getClass().getName()
+                        + " пропущено: символ уже зареєстровано");
+            }
+        }
+    }
+
+    private ComputationRegistry() {}
+
+    // false, якщо символ уже зайнятий іншою фабрикою
+    private static boolean register(ComputationFactory factory) {
+        return FACTORIES.putIfAbsent(factory.getSymbol(), factory) == null;
+    }
+
+    // Фабрика для символу або null, якщо операція невідома
+    public static ComputationFactory get(String symbol) {
+        return FACTORIES.get(symbol);
+    }
+
+    public static Set<String> symbols() {
+        return Collections.unmodifiableSet(FACTORIES.keySet());
+    }
+}
+
+//Вираз над змінними, скомпільований у постфіксний байт-код (наприклад, "(a+b)*c/d").
+//Бінарні операції виконуються об'єктами ComputationData з реєстру (семантика та сама, що й у
+//AdditionComputation тощо, зокрема ділення на нуль дає NaN); ці об'єкти та стек створюються один раз,
+//тому обчислення по рядках не розбирає вираз повторно і не виділяє пам'ять.
+//Над колонками байт-код виконується блоками рядків: кожна інструкція обробляє цілий блок через computeBatch.
+//Екземпляр не потокобезпечний: для кожного потоку потрібна окрема компіляція.
+class CompiledExpression {
+    private static final byte PUSH_VARIABLE = 0;
+    private static final byte PUSH_CONSTANT = 1;
+    private static final byte APPLY = 2;
+    private static final int BLOCK_SIZE = 1024;
+
+    private final byte[] code;      // Пари (інструкція, аргумент)
+    private final double[] constants;
+    private final ComputationData[] operations;
+    private final List<String> variables;
+    private final double[] stack;
+    private double[][] blockStack; // Стек блоків для обчислення над колонками (створюється при першому використанні)
+
+    private CompiledExpression(Compiler compiler) {
+        code = Arrays.copyOf(compiler.code, compiler.length);
+        constants = compiler.constants.stream().mapToDouble(Double::doubleValue).toArray();
+        operations = compiler.operations.toArray(new ComputationData[0]);
+        variables = Collections.unmodifiableList(new ArrayList<>(compiler.variables));
+        stack = new double[Math.max(compiler.maxDepth, 1)];
+    }
+
+    public static CompiledExpression compile(String source) {
+        Compiler compiler = new Compiler(source);
+        compiler.parse();
+        return new CompiledExpression(compiler);
+    }
+
+    // Імена змінних у порядку першої появи; у такому ж порядку передаються значення та колонки
+    public List<String> getVariables() { return variables; }
+
+    public double evaluate(double... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Очікується значень: " + variables.size());
+        }
+        return run(values);
+    }
+
+    // Обчислення для rows рядків: columns[i][row] - значення i-ї змінної
+    public void evaluate(double[][] columns, double[] out, int rows) {
+        if (columns.length != variables.size()) {
+            throw new IllegalArgumentException("Очікується колонок: " + variables.size());
+        }
+        for (double[] column : columns) {
+            Objects.checkFromIndexSize(0, rows, column.length);
+        }
+        Objects.checkFromIndexSize(0, rows, out.length);
+        if (blockStack == null) {
+            blockStack = new double[stack.length][BLOCK_SIZE];
+        }
+        for (int from = 0; from < rows; from += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, rows - from);
+            runBlock(columns, from, count);
+            System.arraycopy(blockStack[0], 0, out, from, count);
+        }
+    }
+
+    private void runBlock(double[][] columns, int from, int count) {
+        double[][] stack = blockStack;
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc += 2) {
+            int argument = code[pc + 1] & 0xFF;
+            switch (code[pc]) {
+                case PUSH_VARIABLE:
+                    System.arraycopy(columns[argument], from, stack[++top], 0, count);
+                    break;
+                case PUSH_CONSTANT:
+                    Arrays.fill(stack[++top], 0, count, constants[argument]);
+                    break;
+                default:
+                    // Результат пишеться на місце лівого операнда: операції поелементні, тож це безпечно
+                    operations[argument].computeBatch(stack[top - 1], stack[top], stack[top - 1], count);
+                    top--;
+            }
+        }
+    }
+
+    private double run(double[] values) {
+        double[] stack = this.stack;
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc += 2) {
+            int argument = code[pc + 1] & 0xFF;
+            switch (code[pc]) {
+                case PUSH_VARIABLE:
+                    stack[++top] = values[argument];
+                    break;
+                case PUSH_CONSTANT:
+                    stack[++top] = constants[argument];
+                    break;
+                default:
+                    ComputationData operation = operations[argument];
+                    operation.setParams(stack[top - 1], stack[top]);
+                    operation.compute();
+                    stack[--top] = operation.getResult();
+            }
+        }
+        return stack[0];
+    }
+
+    //Рекурсивний спуск: вираз := доданок {(+|-) доданок}; доданок := множник {(*|/) множник};
+    //множник := число | змінна | (вираз) | -множник
+    private static final class Compiler {
+        private static final int MAX_ENTRIES = 256; // Аргумент інструкції займає один байт
+
+        private final String source;
+        private int position;
+        private byte[] code = new byte[32];
+        private int length;
+        private int depth;
+        private int maxDepth;
+        private final List<Double> constants = new ArrayList<>();
+        private final List<String> variables = new ArrayList<>();
+        private final List<ComputationData> operations = new ArrayList<>();
+        private final Map<String, Integer> operationIndexes = new HashMap<>();
+
+        Compiler(String source) {
+            this.source = source;
+        }
+
+        void parse() {
+            expression();
+            skipSpaces();
+            if (position < source.length()) {
+                throw error("Зайвий символ");
+            }
+        }
+
+        private void expression() {
+            term();
+            for (char symbol = peek(); symbol == '+' || symbol == '-'; symbol = peek()) {
+                position++;
+                term();
+                emitOperation(symbol);
+            }
+        }
+
+        private void term() {
+            factor();
+            for (char symbol = peek(); symbol == '*' || symbol == '/'; symbol = peek()) {
+                position++;
+                factor();
+                emitOperation(symbol);
+            }
+        }
+
+        private void factor() {
+            char symbol = peek();
+            if (symbol == '-') { // Унарний мінус: 0 - множник
+                position++;
+                emit(PUSH_CONSTANT, indexOf(constants, 0.0));
+                factor();
+                emitOperation('-');
+            } else if (symbol == '(') {
+                position++;
+                expression();
+                if (peek() != ')') {
+                    throw error("Очікується ')'");
+                }
+                position++;
+            } else if (Character.isDigit(symbol) || symbol == '.') {
+                int start = position;
+                while (position < source.length()
+                        && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                try {
+                    emit(PUSH_CONSTANT, indexOf(constants, Double.parseDouble(source.substring(start, position))));
+                } catch (NumberFormatException e) {
+                    position = start;
+                    throw error("Некоректне число");
+                }
+            } else if (Character.isLetter(symbol)) {
+                int start = position;
+                while (position < source.length() && Character.isLetterOrDigit(source.charAt(position))) {
+                    position++;
+                }
+                emit(PUSH_VARIABLE, indexOf(variables, source.substring(start, position)));
+            } else {
+                throw error(symbol == 0 ? "Неочікуваний кінець виразу" : "Неочікуваний символ");
+            }
+        }
+
+        private void emitOperation(char symbol) {
+            String key = String.valueOf(symbol);
+            Integer index = operationIndexes.get(key);
+            if (index == null) {
+                ComputationFactory factory = ComputationRegistry.get(key);
+                if (factory == null) {
+                    throw error("Невідома операція " + key);
+                }
+                index = operations.size();
+                operations.add(factory.createComputation(0, 0));
+                operationIndexes.put(key, index);
+            }
+            emit(APPLY, index);
+        }
+
+        private void emit(byte instruction, int argument) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = instruction;
+            code[length++] = (byte) argument;
+            depth += instruction == APPLY ? -1 : 1;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private <T> int indexOf(List<T> values, T value) {
+            int index = values.indexOf(value);
+            if (index < 0) {
+                if (values.size() == MAX_ENTRIES) {
+                    throw error("Забагато констант або змінних");
+                }
+                values.add(value);
+                index = values.size() - 1;
+            }
+            return index;
+        }
+
+        private char peek() {
+            skipSpaces();
+            return position < source.length() ? source.charAt(position) : 0;
+        }
+
+        private void skipSpaces() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " у позиції " + position + ": " + source);
+        }
+    }
+}
+
+//Сховище результатів на примітивах double, розбите на блоки фіксованого розміру
+class DoubleResultStore {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private double[][] chunks = new double[4][];
+    private int size;
+    private final List<Double> view = new ResultView();
+
+    public void add(double value) {
+        int chunk = size >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new double[CHUNK_SIZE];
+        }
+        chunks[chunk][size & CHUNK_MASK] = value;
+        size++;
+    }
+
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    // Видалення останнього результату (для скасування)
+    public double removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Сховище порожнє");
+        }
+        double last = get(size - 1);
+        truncate(size - 1);
+        return last;
+    }
+
+    // Обрізання до newSize елементів; зайві блоки звільняються, один запасний лишається
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("Некоректний розмір: " + newSize);
+        }
+        size = newSize;
+        int keepChunks = (newSize >>> CHUNK_SHIFT) + 2;
+        for (int i = keepChunks; i < chunks.length && chunks[i] != null; i++) {
+            chunks[i] = null;
+        }
+    }
+
+    // Послідовний обхід без упаковки значень
+    public void forEach(DoubleConsumer action) {
+        int remaining = size;
+        for (int c = 0; remaining > 0; c++) {
+            double[] chunk = chunks[c];
+            int count = Math.min(remaining, CHUNK_SIZE);
+            for (int i = 0; i < count; i++) {
+                action.accept(chunk[i]);
+            }
+            remaining -= count;
+        }
+    }
+
+    // Представлення лише для читання для споживачів List<Double> (без копіювання)
+    public List<Double> asList() { return view; }
+
+    private class ResultView extends AbstractList<Double> implements RandomAccess {
+        public Double get(int index) { return DoubleResultStore.this.get(index); }
+        public int size() { return size; }
+    }
 }
 
 //Клас обробки обчислень
 class ComputationProcessor {
     private ComputationFactory factory;
-    private List<Double> results = new ArrayList<>();
+    private ComputationData computation; // Один об'єкт на процесор, операнди задаються через setParams
+    private DoubleResultStore results = new DoubleResultStore();
 
     public ComputationProcessor(ComputationFactory factory) { this.factory = factory; }
 
     public double performComputation(double param1, double param2) {
-        ComputationData computation = factory.createComputation(param1, param2);
+        ComputationData computation = computation();
+        computation.setParams(param1, param2);
         computation.compute();
         double result = computation.getResult();
         results.add(result);
         return result;
     }
 
-    public List<Double> getResults() { return results; }
+    public List<Double> getResults() { return results.asList(); }
+
+    // Об'єкт обчислення створюється при першому використанні й далі лише отримує нові операнди
+    private ComputationData computation() {
+        if (computation == null) {
+            computation = factory.createComputation(0, 0);
+        }
+        return computation;
+    }
+
+    // Пакетне обчислення без виділення пам'яті: спільний об'єкт ComputationData, результати у попередньо виділеному масиві
+    public void performBatch(double[] params1, double[] params2, double[] out) {
+        if (params1.length != params2.length || out.length < params1.length) {
+            throw new IllegalArgumentException("Розміри масивів не збігаються");
+        }
+        computation().computeBatch(params1, params2, out, params1.length);
+    }
+
+    // Пакетне обчислення над буферами: обробляються елементи від position до limit
+    public void performBatch(DoubleBuffer params1, DoubleBuffer params2, DoubleBuffer out) {
+        int count = params1.remaining();
+        if (params2.remaining() != count || out.remaining() < count) {
+            throw new IllegalArgumentException("Розміри буферів не збігаються");
+        }
+        ComputationData computation = computation();
+        for (int i = 0; i < count; i++) {
+            computation.setParams(params1.get(), params2.get());
+            computation.compute();
+            out.put(computation.getResult());
+        }
+    }
 }
 
 //Клас для тестування функціональності
@@ -114,6 +689,7 @@ class ComputationTest {
     public static void runTests() {
         ComputationProcessor processor = new ComputationProcessor(new AdditionComputationFactory());
         assert processor.performComputation(2, 3) == 5.0 : "Test failed for addition!";
+        assert processor.performComputation(1, 1) == 2.0 && processor.getResults().size() == 2 : "Test failed for repeated addition!";
         
         processor = new ComputationProcessor(new SubtractionComputationFactory());
         assert processor.performComputation(5, 3) == 2.0 : "Test failed for subtraction!";
@@ -124,8 +700,68 @@ class ComputationTest {
         processor = new ComputationProcessor(new DivisionComputationFactory());
         assert processor.performComputation(10, 2) == 5.0 : "Test failed for division!";
         
+        assert ComputationRegistry.get("*") == ComputationRegistry.get("*") : "Test failed for registry flyweight!";
+        assert ComputationRegistry.get("%") == null : "Test failed for unknown operation!";
+        
+        CompiledExpression expression = CompiledExpression.compile("(a + b) * c / d - -2");
+        assert expression.getVariables().equals(Arrays.asList("a", "b", "c", "d")) : "Test failed for expression variables!";
+        assert expression.evaluate(1, 2, 4, 3) == 6.0 : "Test failed for expression!";
+        double[] rows = new double[2];
+        expression.evaluate(new double[][] {{1, 5}, {2, 5}, {4, 1}, {3, 0}}, rows, 2);
+        assert rows[0] == 6.0 && Double.isNaN(rows[1]) : "Test failed for expression over columns!";
+        assert CompiledExpression.compile("2 * x * x").evaluate(3) == 18.0 : "Test failed for repeated variable!";
+        
+        double[] batch = new double[3];
+        processor.performBatch(new double[] {10, 9, 1}, new double[] {2, 3, 0}, batch);
+        assert batch[0] == 5.0 && batch[1] == 3.0 : "Test failed for batch division!";
+        assert Double.isNaN(batch[2]) : "Test failed for batch division by zero!";
+        
+        DoubleBuffer bufferResults = DoubleBuffer.allocate(2);
+        new ComputationProcessor(new MultiplicationComputationFactory())
+                .performBatch(DoubleBuffer.wrap(new double[] {4, 1.5}), DoubleBuffer.wrap(new double[] {3, 2}), bufferResults);
+        assert bufferResults.get(0) == 12.0 && bufferResults.get(1) == 3.0 : "Test failed for buffer multiplication!";
+        
+        List<Double> page = Arrays.asList(1.0, 2.0, 3.0, 4.0, 5.0);
+        assert render(page, 3, 10).equals(Arrays.asList("Computation Result: 4.0", "Computation Result: 5.0", "Показано 4-5 з 5"))
+                : "Test failed for page limit clamping!";
+        assert render(page, -2, 2).equals(Arrays.asList("Computation Result: 1.0", "Computation Result: 2.0", "Показано 1-2 з 5"))
+                : "Test failed for negative offset!";
+        assert render(page, 7, 2).equals(Collections.singletonList("Показано 0-0 з 5")) : "Test failed for offset past the end!";
+        assert render(page, 1, -1).equals(Collections.singletonList("Показано 0-0 з 5")) : "Test failed for negative limit!";
+        assert render(page, 0, 5).size() == 5 : "Test failed for full page without range line!";
+        assert render(page.iterator(), 2).equals(Arrays.asList("Computation Result: 1.0", "Computation Result: 2.0"))
+                : "Test failed for iterator input!";
+        assert render(page.subList(0, 1).iterator(), 3).equals(Collections.singletonList("Computation Result: 1.0"))
+                : "Test failed for short iterator input!";
+        
         System.out.println("Всі тести зроблені!");
     }
+
+    // Рядки, які TextResultDisplay виводить для сторінки списку
+    private static List<String> render(List<Double> results, int offset, int limit) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        capturingDisplay(out).display(results, offset, limit);
+        return lines(out);
+    }
+
+    private static List<String> render(Iterator<Double> results, int limit) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        capturingDisplay(out).display(results, limit);
+        return lines(out);
+    }
+
+    private static ComputationResultDisplay capturingDisplay(ByteArrayOutputStream out) {
+        return new TextResultDisplay() {
+            protected OutputSink openSink() {
+                return OutputSink.to(Channels.newChannel(out), StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return text.isEmpty() ? Collections.emptyList() : Arrays.asList(text.split(System.lineSeparator()));
+    }
 }
 
 //Основний клас для взаємодії з користувачем
@@ -134,26 +770,49 @@ public class Main {
         Scanner scanner = new Scanner(System.in);
         ComputationTest.runTests(); // Запуск тестів
         
-        System.out.println("Оберіть операцію: +, -, *, /");
+        System.out.println("Оберіть операцію: +, -, *, / або expr для виразу");
         String operation = scanner.next();
+        
+        if (operation.equals("expr")) {
+            System.out.println("Введіть вираз (наприклад, (a + b) * c / d):");
+            scanner.nextLine();
+            CompiledExpression expression;
+            try {
+                expression = CompiledExpression.compile(scanner.nextLine());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Некоректний вираз: " + e.getMessage());
+                return;
+            }
+            double[] values = new double[expression.getVariables().size()];
+            for (int i = 0; i < values.length; i++) {
+                System.out.println("Введіть " + expression.getVariables().get(i) + ":");
+                values[i] = scanner.nextDouble();
+            }
+            new TableResultDisplay().display(Collections.singletonList(expression.evaluate(values)));
+            return;
+        }
         System.out.println("Введіть два числа:");
         double param1 = scanner.nextDouble();
         double param2 = scanner.nextDouble();
         
-        ComputationFactory factory;
-        switch (operation) {
-            case "+": factory = new AdditionComputationFactory(); break;
-            case "-": factory = new SubtractionComputationFactory(); break;
-            case "*": factory = new MultiplicationComputationFactory(); break;
-            case "/": factory = new DivisionComputationFactory(); break;
-            default: System.out.println("Невідома операція"); return;
+        ComputationFactory factory = ComputationRegistry.get(operation);
+        if (factory == null) {
+            System.out.println("Невідома операція");
+            return;
         }
         
         ComputationProcessor processor = new ComputationProcessor(factory);
         double result = processor.performComputation(param1, param2);
         
-        System.out.println("Оберіть формат виводу (text/table):");
+        System.out.println("Оберіть формат виводу (text/table/page):");
         String format = scanner.next();
+        if (format.equals("page")) {
+            System.out.println("Введіть зсув і кількість результатів на сторінці:");
+            int offset = scanner.nextInt();
+            int limit = scanner.nextInt();
+            new TableResultDisplay().display(processor.getResults(), offset, limit);
+            return;
+        }
         ComputationResultDisplay display = format.equals("table") ? new TableResultDisplay() : new TextResultDisplay();
         
         display.display(processor.getResults());
@@ -1,5 +1,10 @@
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.stream.*;
 
 
 interface Displayable {  //Інтерфейс для відображення результатів
@@ -22,10 +27,19 @@ class Person implements Serializable, Displayable {     //Базовий кла
     public void display() {
         System.out.printf("| %-15s | %-3d |\n", name, age);
     }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
 }
 
                                     
 class Employee extends Person {    //Підклас Person з додатковою інформацією
+    private static final long serialVersionUID = -212525376328842904L; // Значення без явного поля, як у збережених persons.ser
     private String position;
 
     public Employee(String name, int age, String password, String position) {
@@ -36,6 +50,10 @@ class Employee extends Person {    //Підклас Person з додатково
     public void display() {
         System.out.printf("| %-15s | %-3d | %-10s |\n", name, age, position);
     }
+
+    public String getPosition() {
+        return position;
+    }
 }
 
 
@@ -54,9 +72,134 @@ class ConcretePersonFactory implements PersonFactory {          //Реаліза
         return new Employee(name, age, password, position);
     }
 }
+
+
+class PersonCodec {                                             //Запис осіб у файл по одному і читання їх назад потоком
+    private static final int MAGIC = 0x50534e53; // "PSNS"
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final byte KIND_PERSON = 2;                  // Коди записів ті самі, що й у SerializationWithUndo
+    private static final byte KIND_EMPLOYEE = 3;
+    static final byte END_OF_STREAM = -1;
+    private static final int NULL_STRING = -1;
+
+    // Пароль не записується, як і поле transient при звичайній серіалізації
+    public static void writeAll(String filename, Iterable<? extends Person> persons) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        try {
+            out.writeInt(MAGIC);
+            for (Person person : persons) {
+                out.writeByte(person instanceof Employee ? KIND_EMPLOYEE : KIND_PERSON);
+                writeString(out, person.getName());
+                out.writeInt(person.getAge());
+                if (person instanceof Employee) {
+                    writeString(out, ((Employee) person).getPosition());
+                }
+            }
+            out.writeByte(END_OF_STREAM);
+        } finally {
+            out.close();
+        }
+    }
+
+    // Потік осіб, що читаються з файлу по одному; потік треба закрити (try-with-resources)
+    public static Stream<Person> stream(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        PersonReader reader;
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл не містить записів осіб: " + filename);
+            }
+            reader = new PersonReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    // Читання запису, тип якого вже прочитано
+    static Person read(byte kind, DataInput in) throws IOException {
+        if (kind != KIND_PERSON && kind != KIND_EMPLOYEE) {
+            throw new IOException("Невідомий тип запису: " + kind);
+        }
+        String name = readString(in);
+        int age = in.readInt();
+        return kind == KIND_PERSON ? new Person(name, age, null) : new Employee(name, age, null, readString(in));
+    }
+
+    // Довжина в байтах UTF-8 (NULL_STRING для null) і самі байти - без обмеження writeUTF у 64 КБ
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Некоректна довжина рядка: " + length);
+        }
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];  // Росте лише в міру прочитаних даних
+        for (int read = 0; read < length; ) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int count = bytes.length - read;
+            in.readFully(bytes, read, count);
+            read += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+
+class PersonReader implements Iterator<Person> {                //Ітератор по записах відкритого файлу осіб
+    private final DataInput in;
+    private byte nextKind;
+
+    PersonReader(DataInput in) throws IOException {
+        this.in = in;
+        this.nextKind = in.readByte();
+    }
+
+    public boolean hasNext() {
+        return nextKind != PersonCodec.END_OF_STREAM;
+    }
+
+    public Person next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Person person = PersonCodec.read(nextKind, in);
+            nextKind = in.readByte();
+            return person;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
                                                          
 public class SerializationWithFactory {                          //Головний клас
-    private static final String FILE_NAME = "persons.ser";      
+    private static final String FILE_NAME = "persons.bin";      //Записи PersonCodec замість серіалізованого списку
+    private static final String LEGACY_FILE_NAME = "persons.ser"; //Файл попередніх версій (ObjectOutputStream)
     private static List<Person> personsList = new ArrayList<>();
     
     public static void main(String[] args) {
@@ -95,17 +238,33 @@ public class SerializationWithFactory {                          //Головн
     }
 
     private static void saveToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(personsList);
+        try {
+            PersonCodec.writeAll(FILE_NAME, personsList);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     private static void loadFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            personsList = (List<Person>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        if (!new File(FILE_NAME).exists() && new File(LEGACY_FILE_NAME).exists()) {
+            loadLegacyFile();
+            return;
+        }
+        try (Stream<Person> persons = PersonCodec.stream(FILE_NAME)) {
+            personsList = persons.collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void loadLegacyFile() {                      //Список, збережений попередніми версіями через writeObject
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(LEGACY_FILE_NAME))) {
+            List<Person> loaded = new ArrayList<>();
+            for (Object person : (List<?>) ois.readObject()) {
+                loaded.add((Person) person);
+            }
+            personsList = loaded;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
             e.printStackTrace();
         }
     }
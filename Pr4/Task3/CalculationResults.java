@@ -1,11 +1,27 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.text.DecimalFormatSymbols;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.*;
 
 interface MathOperation extends Serializable {          //Інтерфейс для математичних операцій
     double calculate(double a, double b);
     double calculate(double a); // Перевантажений метод (overloading)
     String getOperationName();
     String formatResult(double a, double b);
+    byte getOperationCode(); // Код операції для двійкового формату
+    String getSymbol(); // Символ операції для реєстру
 }
 
 class Addition implements MathOperation {           //Операція додавання
@@ -23,8 +39,16 @@ class Addition implements MathOperation {           //Операція дода
         return "Додавання";
     }
     
+    public byte getOperationCode() {
+        return 1;
+    }
+    
+    public String getSymbol() {
+        return "+";
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
     }
 }
 
@@ -43,8 +67,105 @@ class Multiplication implements MathOperation {           //Операція м
         return "Множення";
     }
     
+    public byte getOperationCode() {
+        return 2;
+    }
+    
+    public String getSymbol() {
+        return "*";
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
+    }
+}
+
+// Форматування рядка таблиці без String.format (без розбору шаблону та упаковки аргументів).
+// Результат збігається з String.format("| %-10s | %8.2f | %8.2f | %8.2f |", ...) у поточній локалі:
+// значення, близькі до межі округлення, а також NaN, нескінченності й дуже великі числа форматуються стандартно.
+class TableRowFormatter {
+    private static final int NUMBER_WIDTH = 8;
+    private static final int NAME_WIDTH = 10;
+    private static final double FAST_PATH_LIMIT = 1e7;
+    private static final double HALF_TOLERANCE = 1e-6;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+    private static volatile Locale cachedLocale;
+    private static volatile char decimalSeparator;
+    private static volatile boolean asciiDigits;
+
+    public static String format(String name, double a, double b, double result) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendRow(buffer, name, a, b, result).toString();
+    }
+
+    // Дописує рядок таблиці у переданий буфер (буфер можна використовувати повторно)
+    public static StringBuilder appendRow(StringBuilder buffer, String name, double a, double b, double result) {
+        Locale locale = currentLocale();
+        buffer.append("| ").append(name);
+        for (int i = String.valueOf(name).length(); i < NAME_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        buffer.append(" | ");
+        appendFixed2(buffer, a, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, b, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, result, locale);
+        return buffer.append(" |");
+    }
+
+    // Число з двома знаками після коми, вирівняне праворуч до ширини 8 (аналог %8.2f)
+    private static void appendFixed2(StringBuilder buffer, double value, Locale locale) {
+        double magnitude = Math.abs(value);
+        if (!asciiDigits || !(magnitude < FAST_PATH_LIMIT)) {
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        double scaled = magnitude * 100;
+        long units = (long) scaled;
+        double fraction = scaled - units;
+        if (Math.abs(fraction - 0.5) < HALF_TOLERANCE) {
+            // Межа округлення: десяткове представлення вирішує, тому форматуємо стандартно
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        if (fraction > 0.5) {
+            units++;
+        }
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long integerPart = units / 100;
+        int cents = (int) (units % 100);
+        int length = digitCount(integerPart) + 3 + (negative ? 1 : 0);
+        for (int i = length; i < NUMBER_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        if (negative) {
+            buffer.append('-');
+        }
+        buffer.append(integerPart).append(decimalSeparator);
+        buffer.append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    // Символи локалі кешуються та оновлюються лише при зміні локалі за замовчуванням
+    private static Locale currentLocale() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale != cachedLocale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            decimalSeparator = symbols.getDecimalSeparator();
+            asciiDigits = symbols.getZeroDigit() == '0';
+            cachedLocale = locale;
+        }
+        return locale;
     }
 }
 
@@ -54,50 +175,966 @@ interface MathOperationFactory {          //Фабрика для створен
 
 class AdditionFactory implements MathOperationFactory {
     public MathOperation createOperation() {
-        return new Addition();
+        return MathOperationRegistry.get("+"); // Операції без стану, тому повертається спільний екземпляр
     }
 }
 
 class MultiplicationFactory implements MathOperationFactory {
     public MathOperation createOperation() {
-        return new Multiplication();
+        return MathOperationRegistry.get("*");
+    }
+}
+
+//Реєстр операцій за символом і кодом: кожна операція не має стану й існує в одному спільному екземплярі.
+//Додаткові операції підключаються через ServiceLoader (файл META-INF/services/MathOperation на classpath).
+//Реєстр заповнюється лише під час ініціалізації класу й далі не змінюється, тому пошук не потребує синхронізації.
+class MathOperationRegistry {
+    private static final Map<String, MathOperation> BY_SYMBOL = new LinkedHashMap<>();
+    private static final MathOperation[] BY_CODE = new MathOperation[256]; // Індекс = код операції (0..255)
+    
+    static {
+        register(new Addition());
+        register(new Multiplication());
+        for (MathOperation operation : ServiceLoader.load(MathOperation.class)) {
+            if (!register(operation)) { // Дублікат не повинен зробити клас реєстру непридатним
+                System.err.println("Операцію " + operation.getSymbol() + " з " + operation.getClass().getName()
+                        + " пропущено: символ або код уже зареєстровано");
+            }
+        }
+    }
+    
+    private MathOperationRegistry() {}
+    
+    // false, якщо символ або код операції вже зайняті
+    private static boolean register(MathOperation operation) {
+        int code = operation.getOperationCode() & 0xFF;
+        if (BY_SYMBOL.containsKey(operation.getSymbol()) || BY_CODE[code] != null) {
+            return false;
+        }
+        BY_SYMBOL.put(operation.getSymbol(), operation);
+        BY_CODE[code] = operation;
+        return true;
+    }
+    
+    // Операція для символу або null, якщо символ невідомий
+    public static MathOperation get(String symbol) {
+        return BY_SYMBOL.get(symbol);
+    }
+    
+    public static boolean isRegistered(byte code) {
+        return BY_CODE[code & 0xFF] != null;
+    }
+    
+    public static MathOperation byCode(byte code) {
+        MathOperation operation = BY_CODE[code & 0xFF];
+        if (operation == null) {
+            throw new IllegalArgumentException("Невідомий код операції: " + code);
+        }
+        return operation;
+    }
+    
+    public static List<MathOperation> all() {
+        return new ArrayList<>(BY_SYMBOL.values());
+    }
+}
+                                              
+interface ResultTable {                  //Таблиця результатів з довільним доступом до рядків
+    void add(byte code, double a, double b, double result);
+    void removeLast();
+    int size();
+    byte getCode(int index);
+    double getA(int index);
+    double getB(int index);
+    double getResult(int index);
+}
+
+class ResultColumns implements ResultTable {                  //Результати обчислень у вигляді примітивних колонок (код операції, A, B, результат)
+    private byte[] codes;
+    private double[] operandsA;
+    private double[] operandsB;
+    private double[] values;
+    private int size;
+    
+    public ResultColumns() {
+        this(16);
+    }
+    
+    public ResultColumns(int capacity) {
+        codes = new byte[capacity];
+        operandsA = new double[capacity];
+        operandsB = new double[capacity];
+        values = new double[capacity];
+    }
+    
+    public void add(byte code, double a, double b, double result) {
+        if (size == codes.length) {
+            int capacity = Math.max(16, size * 2);
+            codes = Arrays.copyOf(codes, capacity);
+            operandsA = Arrays.copyOf(operandsA, capacity);
+            operandsB = Arrays.copyOf(operandsB, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        codes[size] = code;
+        operandsA[size] = a;
+        operandsB[size] = b;
+        values[size] = result;
+        size++;
+    }
+    
+    public void removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Немає результатів");
+        }
+        size--;
+    }
+    
+    public int size() { return size; }
+    public byte getCode(int index) { return codes[Objects.checkIndex(index, size)]; }
+    public double getA(int index) { return operandsA[Objects.checkIndex(index, size)]; }
+    public double getB(int index) { return operandsB[Objects.checkIndex(index, size)]; }
+    public double getResult(int index) { return values[Objects.checkIndex(index, size)]; }
+    
+    // Прямий доступ до масивів для двійкового формату (заповнені лише перші size елементів)
+    byte[] codesArray() { return codes; }
+    double[] operandsAArray() { return operandsA; }
+    double[] operandsBArray() { return operandsB; }
+    double[] valuesArray() { return values; }
+    
+    void setSize(int size) { this.size = size; }
+}
+
+/*
+ * Двійковий колонковий формат результатів:
+ * заголовок (магічне число "CRES", версія, кількість колонок, кількість рядків),
+ * далі колонки підряд: коди операцій (1 байт), A, B, результат (по 8 байт).
+ * Файл записується у контейнер BlockCompressedOutputStream; нестиснуті файли попередніх версій теж читаються.
+ */
+class ResultsBinaryFormat {
+    static final int MAGIC = 0x43524553;
+    static final short VERSION = 1;
+    static final short COLUMNS = 4;
+    static final int HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+    
+    public static void write(ResultTable table, String filename) throws IOException {
+        int rows = table.size();
+        try (WritableByteChannel channel = Channels.newChannel(new BlockCompressedOutputStream(Paths.get(filename)))) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort(COLUMNS).putLong(rows);
+            
+            if (table instanceof ResultColumns) {
+                ResultColumns columns = (ResultColumns) table;
+                byte[] codes = columns.codesArray();
+                for (int offset = 0; offset < rows; ) {
+                    int count = Math.min(buffer.remaining(), rows - offset);
+                    buffer.put(codes, offset, count);
+                    offset += count;
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer);
+                    }
+                }
+                writeColumn(channel, buffer, columns.operandsAArray(), rows);
+                writeColumn(channel, buffer, columns.operandsBArray(), rows);
+                writeColumn(channel, buffer, columns.valuesArray(), rows);
+            } else {
+                // Інші таблиці (напр. відображений файл) читаються по рядках, без копії в пам'ять
+                for (int column = 0; column < COLUMNS; column++) {
+                    for (int i = 0; i < rows; i++) {
+                        if (buffer.remaining() < Double.BYTES) {
+                            flush(channel, buffer);
+                        }
+                        switch (column) {
+                            case 0: buffer.put(table.getCode(i)); break;
+                            case 1: buffer.putDouble(table.getA(i)); break;
+                            case 2: buffer.putDouble(table.getB(i)); break;
+                            default: buffer.putDouble(table.getResult(i)); break;
+                        }
+                    }
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+    
+    public static ResultColumns read(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        InputStream in = BlockCompressedInputStream.open(path);
+        try (ReadableByteChannel channel = Channels.newChannel(in)) {
+            // Розмір розпакованих даних відомий з індексу контейнера, тому файл перевіряється до виділення колонок
+            long size = in instanceof BlockCompressedInputStream ? ((BlockCompressedInputStream) in).length() : Files.size(path);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(HEADER_SIZE);
+            readFully(channel, buffer);
+            buffer.flip();
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не є двійковим файлом результатів: " + filename);
+            }
+            short version = buffer.getShort();
+            short columnCount = buffer.getShort();
+            long rowCount = buffer.getLong();
+            if (version != VERSION || columnCount != COLUMNS) {
+                throw new IOException("Непідтримувана версія формату: " + version);
+            }
+            if (rowCount < 0 || rowCount > Integer.MAX_VALUE - 8
+                    || size != HEADER_SIZE + rowCount * (1 + 3 * Double.BYTES)) {
+                throw new IOException("Пошкоджений файл результатів: " + filename);
+            }
+            
+            int rows = (int) rowCount;
+            ResultColumns columns = new ResultColumns(rows);
+            byte[] codes = columns.codesArray();
+            for (int offset = 0; offset < rows; ) {
+                buffer.clear();
+                buffer.limit(Math.min(BUFFER_SIZE, rows - offset));
+                readFully(channel, buffer);
+                buffer.flip();
+                int count = buffer.remaining();
+                buffer.get(codes, offset, count);
+                // Невідомий код виявляється одразу, а не пізніше при відображенні чи статистиці
+                for (int i = offset; i < offset + count; i++) {
+                    if (!MathOperationRegistry.isRegistered(codes[i])) {
+                        throw new IOException("Пошкоджений файл результатів: " + filename + " (код операції " + codes[i] + ")");
+                    }
+                }
+                offset += count;
+            }
+            readColumn(channel, buffer, columns.operandsAArray(), rows);
+            readColumn(channel, buffer, columns.operandsBArray(), rows);
+            readColumn(channel, buffer, columns.valuesArray(), rows);
+            columns.setSize(rows);
+            return columns;
+        }
+    }
+    
+    // Перетворення старого results.ser (серіалізований List<String> з рядками таблиці)
+    public static void convertLegacy(String serFilename, String binFilename) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(BlockCompressedInputStream.open(Paths.get(serFilename)))) {
+            @SuppressWarnings("unchecked")
+            List<String> rows = (List<String>) ois.readObject();
+            write(parseRows(rows), binFilename);
+        }
+    }
+    
+    // Розбір рядків формату "| Назва | A | B | Результат |" (значення округлені до двох знаків)
+    public static ResultColumns parseRows(List<String> rows) throws IOException {
+        ResultColumns columns = new ResultColumns(rows.size());
+        for (String row : rows) {
+            String[] cells = row.split("\\|");
+            if (cells.length < 5) {
+                throw new IOException("Некоректний рядок результату: " + row);
+            }
+            columns.add(codeOf(cells[1].trim()), parseNumber(cells[2]), parseNumber(cells[3]), parseNumber(cells[4]));
+        }
+        return columns;
+    }
+    
+    private static byte codeOf(String operationName) throws IOException {
+        for (MathOperation operation : MathOperationRegistry.all()) {
+            if (operation.getOperationName().equals(operationName)) {
+                return operation.getOperationCode();
+            }
+        }
+        throw new IOException("Невідома операція: " + operationName);
+    }
+    
+    private static double parseNumber(String cell) throws IOException {
+        try {
+            return Double.parseDouble(cell.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IOException("Некоректне число: " + cell, e);
+        }
+    }
+    
+    private static void writeColumn(WritableByteChannel channel, ByteBuffer buffer, double[] column, int rows) throws IOException {
+        for (int offset = 0; offset < rows; ) {
+            int count = Math.min(buffer.remaining() / Double.BYTES, rows - offset);
+            if (count == 0) {
+                flush(channel, buffer);
+                continue;
+            }
+            buffer.asDoubleBuffer().put(column, offset, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            offset += count;
+        }
+    }
+    
+    private static void readColumn(ReadableByteChannel channel, ByteBuffer buffer, double[] column, int rows) throws IOException {
+        for (int offset = 0; offset < rows; ) {
+            int count = Math.min(BUFFER_SIZE / Double.BYTES, rows - offset);
+            buffer.clear();
+            buffer.limit(count * Double.BYTES);
+            readFully(channel, buffer);
+            buffer.flip();
+            buffer.asDoubleBuffer().get(column, offset, count);
+            offset += count;
+        }
+    }
+    
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Неочікуваний кінець файлу результатів");
+            }
+        }
+    }
+}
+/*
+ * Файл результатів із записами фіксованого розміру, відображений у пам'ять.
+ * Заголовок 32 байти ("CRMM", версія, розмір запису, кількість записів),
+ * запис 32 байти: код операції (1 байт + 7 байт вирівнювання), A, B, результат.
+ * Файл відображається сегментами по 8 МБ лише при першому зверненні, тому відкриття миттєве,
+ * а дані, більші за heap, читаються через кеш сторінок ОС.
+ */
+class MappedResultFile implements ResultTable, Closeable {
+    static final int MAGIC = 0x43524d4d;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+    private static final int SEGMENT_SHIFT = 18;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[1];
+    private int size;
+    
+    private MappedResultFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        boolean created = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (created) {
+            header.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) RECORD_SIZE).putLong(8, 0);
+        } else {
+            long count = header.getLong(8);
+            if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE
+                    || count < 0 || count > Integer.MAX_VALUE || channel.size() < HEADER_SIZE + count * RECORD_SIZE) {
+                throw new IOException("Файл не є відображуваним файлом результатів");
+            }
+            size = (int) count;
+        }
+    }
+    
+    public static MappedResultFile open(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedResultFile(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    public void add(byte code, double a, double b, double result) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Файл результатів заповнений");
+        }
+        MappedByteBuffer segment = segment(size);
+        int offset = (size & SEGMENT_MASK) * RECORD_SIZE;
+        segment.put(offset, code);
+        segment.putDouble(offset + 8, a);
+        segment.putDouble(offset + 16, b);
+        segment.putDouble(offset + 24, result);
+        size++;
+        header.putLong(8, size);
+    }
+    
+    public void removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Немає результатів");
+        }
+        size--;
+        header.putLong(8, size);
+    }
+    
+    public int size() { return size; }
+    public byte getCode(int index) { return segment(Objects.checkIndex(index, size)).get(offset(index)); }
+    public double getA(int index) { return segment(Objects.checkIndex(index, size)).getDouble(offset(index) + 8); }
+    public double getB(int index) { return segment(Objects.checkIndex(index, size)).getDouble(offset(index) + 16); }
+    public double getResult(int index) { return segment(Objects.checkIndex(index, size)).getDouble(offset(index) + 24); }
+    
+    private static int offset(int index) {
+        return (index & SEGMENT_MASK) * RECORD_SIZE;
+    }
+    
+    private MappedByteBuffer segment(int index) {
+        int number = index >>> SEGMENT_SHIFT;
+        if (number >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(number + 1, segments.length * 2));
+        }
+        MappedByteBuffer segment = segments[number];
+        if (segment == null) {
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + number * SEGMENT_BYTES, SEGMENT_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments[number] = segment;
+        }
+        return segment;
+    }
+    
+    // Скидання змінених сторінок на диск і закриття файлу (файл може містити зарезервоване місце після останнього запису)
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+        channel.close();
     }
 }
                                               
+// Консольний вивід таблиці результатів блоками по 64 КБ: рядки форматуються прямо в спільний буфер,
+// який кодується й записується в канал stdout, лише коли заповниться або при flush().
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
+
+// Контейнер зі стисненням блоками: дані діляться на блоки (за замовчуванням 1 МБ), кожен стискається Deflater
+// незалежно від інших і паралельно (ForkJoinPool.commonPool()), а в кінці файлу записується індекс блоків.
+// Формат: [магічне число "BCZ1", розмір блоку] блоки... індекс (зсув, довжина стиснутого, довжина вихідного, CRC32)
+// на кожен блок, кінцівка (зсув індексу, кількість блоків, магічне число).
+class BlockCompressedOutputStream extends OutputStream {
+    static final int MAGIC = 0x42435a31; // "BCZ1"
+    static final int HEADER_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 20;
+    static final int FOOTER_SIZE = 16;
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int maxPending = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<CompressedBlock>> pending = new ArrayDeque<>();
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private byte[] block;
+    private int blockLength;
+    private int blockCount;
+    private long position = HEADER_SIZE;
+    private boolean closed;
+
+    public BlockCompressedOutputStream(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockCompressedOutputStream(Path path, int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(blockSize);
+        header.flip();
+        writeFully(header);
+    }
+
+    public void write(int value) throws IOException {
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+        block[blockLength++] = (byte) value;
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        while (length > 0) {
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+            int count = Math.min(length, blockSize - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeBlock(pending.poll());
+            }
+            indexOut.flush();
+            long indexOffset = position;
+            ByteBuffer tail = ByteBuffer.allocate(index.size() + FOOTER_SIZE);
+            tail.put(index.toByteArray()).putLong(indexOffset).putInt(blockCount).putInt(MAGIC);
+            tail.flip();
+            writeFully(tail);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+            channel.close();
+        }
+    }
+
+    // Блок передається на стиснення; завершені блоки записуються у файл строго по порядку
+    private void submitBlock() throws IOException {
+        byte[] raw = block;
+        int length = blockLength;
+        pending.add(CompletableFuture.supplyAsync(() -> CompressedBlock.compress(raw, length)));
+        block = new byte[blockSize];
+        blockLength = 0;
+        while (pending.size() > maxPending) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private void writeBlock(CompletableFuture<CompressedBlock> future) throws IOException {
+        CompressedBlock compressed;
+        try {
+            compressed = future.join();
+        } catch (CompletionException e) {
+            throw new IOException("Помилка стиснення блоку", e.getCause());
+        }
+        writeFully(ByteBuffer.wrap(compressed.data, 0, compressed.length));
+        indexOut.writeLong(position);
+        indexOut.writeInt(compressed.length);
+        indexOut.writeInt(compressed.rawLength);
+        indexOut.writeInt(compressed.crc);
+        position += compressed.length;
+        blockCount++;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class CompressedBlock {
+        final byte[] data;
+        final int length;
+        final int rawLength;
+        final int crc;
+
+        private CompressedBlock(byte[] data, int length, int rawLength, int crc) {
+            this.data = data;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+
+        static CompressedBlock compress(byte[] raw, int rawLength) {
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, rawLength);
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw, 0, rawLength);
+                deflater.finish();
+                byte[] out = new byte[rawLength / 2 + 64];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    length += deflater.deflate(out, length, out.length - length);
+                }
+                return new CompressedBlock(out, length, rawLength, (int) crc.getValue());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
+
+// Читання контейнера BlockCompressedOutputStream: наступні блоки розпаковуються паралельно наперед,
+// а індекс дозволяє перейти до будь-якої позиції (seek) чи прочитати окремий блок без розпакування попередніх.
+class BlockCompressedInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] checksums;
+    private final long[] rawStarts; // Позиція початку кожного блоку в розпакованих даних
+    private final int maxAhead = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<byte[]>> ahead = new ArrayDeque<>();
+    private int nextBlock;      // Наступний блок для розпакування наперед
+    private byte[] current = new byte[0];
+    private int currentPosition;
+
+    public BlockCompressedInputStream(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < BlockCompressedOutputStream.HEADER_SIZE + BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            ByteBuffer header = readAt(0, BlockCompressedOutputStream.HEADER_SIZE);
+            if (header.getInt() != BlockCompressedOutputStream.MAGIC) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            int blockSize = header.getInt();
+            ByteBuffer footer = readAt(size - BlockCompressedOutputStream.FOOTER_SIZE, BlockCompressedOutputStream.FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != BlockCompressedOutputStream.MAGIC || count < 0 || blockSize <= 0
+                    || indexOffset < BlockCompressedOutputStream.HEADER_SIZE
+                    || indexOffset + (long) count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE
+                            != size - BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Пошкоджений індекс контейнера: " + path);
+            }
+            ByteBuffer index = readAt(indexOffset, count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE);
+            offsets = new long[count];
+            compressedLengths = new int[count];
+            rawLengths = new int[count];
+            checksums = new int[count];
+            rawStarts = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = index.getLong();
+                compressedLengths[i] = index.getInt();
+                rawLengths[i] = index.getInt();
+                checksums[i] = index.getInt();
+                // Записи індексу перевіряються до будь-якого виділення пам'яті під блоки:
+                // блок лежить між заголовком та індексом і не довший за розмір блоку з заголовка
+                if (rawLengths[i] < 0 || rawLengths[i] > blockSize || compressedLengths[i] < 0
+                        || offsets[i] < BlockCompressedOutputStream.HEADER_SIZE
+                        || offsets[i] > indexOffset - compressedLengths[i]) {
+                    throw new IOException("Пошкоджений запис індексу контейнера (блок " + i + "): " + path);
+                }
+                rawStarts[i + 1] = rawStarts[i] + rawLengths[i];
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        scheduleAhead();
+    }
+
+    // Чи записано файл у форматі контейнера (за магічним числом на початку)
+    public static boolean isCompressed(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) {
+                if (file.read(magic) < 0) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == BlockCompressedOutputStream.MAGIC;
+        }
+    }
+
+    // Відкриття файлу для читання: контейнер розпаковується, звичайний файл читається як є
+    public static InputStream open(Path path) throws IOException {
+        return isCompressed(path)
+                ? new BlockCompressedInputStream(path)
+                : new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+    }
+
+    public long length() { return rawStarts[offsets.length]; }
+
+    // Розпакування одного блоку незалежно від поточної позиції читання
+    public byte[] readBlock(int block) throws IOException {
+        Objects.checkIndex(block, offsets.length);
+        byte[] compressed = new byte[compressedLengths[block]];
+        ByteBuffer target = ByteBuffer.wrap(compressed);
+        long offset = offsets[block];
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new EOFException("Неповний блок " + block);
+            }
+        }
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, length, raw.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != raw.length) {
+                throw new IOException("Неповний блок " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Пошкоджений блок " + block, e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        if ((int) crc.getValue() != checksums[block]) {
+            throw new IOException("Невідповідність контрольної суми блоку " + block);
+        }
+        return raw;
+    }
+
+    public int read() throws IOException {
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        return current[currentPosition++] & 0xFF;
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, bytes, offset, count);
+        currentPosition += count;
+        return count;
+    }
+
+    public int available() {
+        return current.length - currentPosition;
+    }
+
+    public void close() throws IOException {
+        ahead.forEach(future -> future.cancel(false));
+        ahead.clear();
+        channel.close();
+    }
+
+    private boolean advance() throws IOException {
+        while (!ahead.isEmpty()) {
+            try {
+                current = ahead.poll().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof UncheckedIOException ? ((UncheckedIOException) cause).getCause() : new IOException(cause);
+            }
+            currentPosition = 0;
+            scheduleAhead();
+            if (current.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleAhead() {
+        while (ahead.size() < maxAhead && nextBlock < offsets.length) {
+            int block = nextBlock++;
+            ahead.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readBlock(block);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
+
 class CalculationResultsManager {                  //Клас для роботи з обчисленнями та збереження результатів
-    private List<String> results = new ArrayList<>();
+    private ResultTable results = new ResultColumns();
+    
+    public void addResult(MathOperation operation, double a, double b) {
+        results.add(operation.getOperationCode(), a, b, operation.calculate(a, b));
+    }
+    
+    public void undoLastResult() {
+        if (results.size() == 0) {
+            System.out.println("Немає операцій для скасування.");
+            return;
+        }
+        results.removeLast();
+        System.out.println("Останню операцію скасовано.");
+    }
+    
+    public void displayStatistics() {
+        int count = results.size();
+        if (count == 0) {
+            System.out.println("Немає результатів.");
+            return;
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum = 0;
+        for (int i = 0; i < count; i++) {
+            double value = results.getResult(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        System.out.println("Мінімум: " + min);
+        System.out.println("Максимум: " + max);
+        System.out.println("Середнє: " + sum / count);
+    }
     
-    public void addResult(String result) {
-        results.add(result);
+    // Робота безпосередньо з файлом, відображеним у пам'ять; попередній файл закривається
+    public void openMapped(String filename) throws IOException {
+        MappedResultFile mapped = MappedResultFile.open(filename);
+        close();
+        results = mapped;
+    }
+    
+    public void close() throws IOException {
+        if (results instanceof MappedResultFile) {
+            ((MappedResultFile) results).close();
+            results = new ResultColumns();
+        }
     }
     
     public void displayResults() {
-        if (results.isEmpty()) {
+        displayResults(0, results.size());
+    }
+    
+    // Сторінка таблиці: не більше limit рядків, починаючи з offset
+    public void displayResults(int offset, int limit) {
+        if (results.size() == 0) {
             System.out.println("Немає результатів.");
             return;
         }
-        System.out.println("+------------+----------+----------+----------+");
-        System.out.println("| Операція   |    A     |    B     |  Результат  |");
-        System.out.println("+------------+----------+----------+----------+");
-        for (String result : results) {
-            System.out.println(result);
+        int from = Math.max(0, Math.min(offset, results.size()));
+        int to = from + Math.max(0, Math.min(limit, results.size() - from));
+        OutputSink sink = OutputSink.console();
+        sink.println("+------------+----------+----------+----------+");
+        sink.println("| Операція   |    A     |    B     |  Результат  |");
+        sink.println("+------------+----------+----------+----------+");
+        for (int i = from; i < to; i++) {
+            appendRow(sink.builder(), i);
+            sink.newLine();
+        }
+        sink.println("+------------+----------+----------+----------+");
+        if (to - from < results.size()) {
+            sink.println("Рядки " + (to > from ? (from + 1) + "-" + to : "0-0") + " з " + results.size());
         }
-        System.out.println("+------------+----------+----------+----------+");
+        sink.flush();
+    }
+    
+    private StringBuilder appendRow(StringBuilder buffer, int index) {
+        return TableRowFormatter.appendRow(buffer, MathOperationRegistry.byCode(results.getCode(index)).getOperationName(),
+                results.getA(index), results.getB(index), results.getResult(index));
     }
     
+    // Старий формат: серіалізований List<String> з відформатованими рядками
     public void serialize(String filename) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(results);
+        List<String> rows = new ArrayList<>(results.size());
+        StringBuilder row = new StringBuilder(64);
+        for (int i = 0; i < results.size(); i++) {
+            row.setLength(0);
+            rows.add(appendRow(row, i).toString());
+        }
+        // Рядки таблиці дуже повторювані, тому файл стискається блоками (див. BlockCompressedOutputStream)
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BlockCompressedOutputStream(Paths.get(filename)))) {
+            oos.writeObject(rows);
         }
     }
     
     public void deserialize(String filename) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
+        try (ObjectInputStream ois = new ObjectInputStream(BlockCompressedInputStream.open(Paths.get(filename)))) {
             @SuppressWarnings("unchecked")
             List<String> loadedResults = (List<String>) ois.readObject();
-            results = loadedResults;
+            ResultColumns parsed = ResultsBinaryFormat.parseRows(loadedResults);
+            close();
+            results = parsed;
         }
     }
+    
+    // Двійковий колонковий формат (див. ResultsBinaryFormat)
+    public void serializeBinary(String filename) throws IOException {
+        ResultsBinaryFormat.write(results, filename);
+    }
+    
+    public void deserializeBinary(String filename) throws IOException {
+        ResultColumns loaded = ResultsBinaryFormat.read(filename);
+        close();
+        results = loaded;
+    }
 }
 
 
@@ -107,11 +1144,39 @@ public class CalculationResults {           //Головний клас для 
         CalculationResultsManager manager = new CalculationResultsManager();
         
         while (true) {
-            System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Зберегти результати 5) Завантажити результати 6) Вийти");
+            System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Зберегти результати 5) Завантажити результати 6) Вийти 7) Відкрити results.dat у пам'яті 8) Скасувати 9) Статистика 10) Показати діапазон");
             int choice = scanner.nextInt();
             
             if (choice == 6) break;
             
+            if (choice == 7) {
+                try {
+                    manager.openMapped("results.dat");
+                    System.out.println("Файл results.dat відкрито.");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                continue;
+            }
+            
+            if (choice == 8) {
+                manager.undoLastResult();
+                continue;
+            }
+            
+            if (choice == 9) {
+                manager.displayStatistics();
+                continue;
+            }
+            
+            if (choice == 10) {
+                System.out.println("Введіть номер першого рядка та кількість рядків:");
+                int first = scanner.nextInt();
+                int count = scanner.nextInt();
+                manager.displayResults(first - 1, count);
+                continue;
+            }
+            
             if (choice == 3) {
                 manager.displayResults();
                 continue;
@@ -119,7 +1184,7 @@ public class CalculationResults {           //Головний клас для 
             
             if (choice == 4) {
                 try {
-                    manager.serialize("results.ser");
+                    manager.serializeBinary("results.bin");
                     System.out.println("Результати збережено.");
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -129,7 +1194,11 @@ public class CalculationResults {           //Головний клас для 
             
             if (choice == 5) {
                 try {
-                    manager.deserialize("results.ser");
+                    if (!new File("results.bin").exists() && new File("results.ser").exists()) {
+                        ResultsBinaryFormat.convertLegacy("results.ser", "results.bin");
+                        System.out.println("Файл results.ser перетворено у results.bin.");
+                    }
+                    manager.deserializeBinary("results.bin");
                     System.out.println("Результати завантажено.");
                     manager.displayResults();
                 } catch (IOException | ClassNotFoundException e) {
@@ -142,14 +1211,17 @@ public class CalculationResults {           //Головний клас для 
             double a = scanner.nextDouble();
             double b = scanner.nextDouble();
             
-            MathOperationFactory factory = (choice == 1) ? new AdditionFactory() : new MultiplicationFactory();
-            MathOperation operation = factory.createOperation();
+            MathOperation operation = MathOperationRegistry.get(choice == 1 ? "+" : "*");
             
-            String result = operation.formatResult(a, b);
-            manager.addResult(result);
-            System.out.println("Результат: \n" + result);
+            manager.addResult(operation, a, b);
+            System.out.println("Результат: \n" + operation.formatResult(a, b));
         }
         
+        try {
+            manager.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         scanner.close();
     }
 }
@@ -1,5 +1,14 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
 
 // Абстрактний клас для обчислень
 abstract class ComputationData implements Serializable {
@@ -19,6 +28,27 @@ abstract class ComputationData implements Serializable {
     public void compute(double additionalValue) {
         this.result += additionalValue;
     }
+
+    // Повторне використання об'єкта з новими операндами (пакетний режим без алокацій)
+    public void setParams(double param1, double param2) {
+        this.param1 = param1;
+        this.param2 = param2;
+    }
+
+    static final int STATE_SIZE = 3 * Double.BYTES; // param1, param2, result
+
+    // Запис і точне відновлення примітивного стану (для знімків скасування)
+    void writeState(ByteBuffer buffer, int offset) {
+        buffer.putDouble(offset, param1);
+        buffer.putDouble(offset + Double.BYTES, param2);
+        buffer.putDouble(offset + 2 * Double.BYTES, result);
+    }
+
+    void readState(ByteBuffer buffer, int offset) {
+        param1 = buffer.getDouble(offset);
+        param2 = buffer.getDouble(offset + Double.BYTES);
+        result = buffer.getDouble(offset + 2 * Double.BYTES);
+    }
 }
 
 // Операції
@@ -46,25 +76,81 @@ class DivisionComputation extends ComputationData {
 interface Command {
     void execute();
     void undo();
+    void redo(); // Повторне застосування після undo без повторного обчислення
     double getResult();
 }
 
+// Кільцевий буфер знімків стану поза купою (direct ByteBuffer): для кожного виконання зберігаються
+// стан до і після обчислення, тому undo/redo відновлюють значення точно і за O(1).
+// Пам'ять обмежена capacity записами; найстаріші знімки перезаписуються, і такі команди вже не скасовуються.
+class SnapshotRing {
+    private static final int RECORD_SIZE = 2 * ComputationData.STATE_SIZE;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private long nextSequence;
+
+    public SnapshotRing(int capacity) {
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+    }
+
+    // Виконує обчислення, зберігаючи стан до і після; повертає номер знімка
+    public long capture(ComputationData computation) {
+        long sequence = nextSequence++;
+        int offset = offset(sequence);
+        computation.writeState(buffer, offset);
+        computation.compute();
+        computation.writeState(buffer, offset + ComputationData.STATE_SIZE);
+        return sequence;
+    }
+
+    public void restoreBefore(long sequence, ComputationData computation) {
+        computation.readState(buffer, checkedOffset(sequence));
+    }
+
+    public void restoreAfter(long sequence, ComputationData computation) {
+        computation.readState(buffer, checkedOffset(sequence) + ComputationData.STATE_SIZE);
+    }
+
+    private int checkedOffset(long sequence) {
+        if (sequence < 0 || sequence >= nextSequence || nextSequence - sequence > capacity) {
+            throw new IllegalStateException("Знімок стану " + sequence + " уже витіснено");
+        }
+        return offset(sequence);
+    }
+
+    private int offset(long sequence) {
+        return (int) (sequence % capacity) * RECORD_SIZE;
+    }
+}
+
 // Абстрактна команда для обчислень
 abstract class ComputationCommand implements Command {
+    static final int SNAPSHOT_CAPACITY = 4096;
+    private static final SnapshotRing SNAPSHOTS = new SnapshotRing(SNAPSHOT_CAPACITY); // Спільний для всіх команд
+
     protected ComputationData computation;
     protected double result;
+    private long snapshot = -1;
 
     public ComputationCommand(ComputationData computation) {
         this.computation = computation;
     }
 
     public void execute() {
-        computation.compute();
+        snapshot = SNAPSHOTS.capture(computation);
         result = computation.getResult();
     }
 
+    // Відновлення стану до виконання зі знімка (без обчислень і похибки віднімання)
     public void undo() {
-        computation.compute(-result);
+        SNAPSHOTS.restoreBefore(snapshot, computation);
+    }
+
+    public void redo() {
+        SNAPSHOTS.restoreAfter(snapshot, computation);
+        result = computation.getResult();
     }
     
     public double getResult() {
@@ -116,17 +202,741 @@ class MacroCommand implements Command {
             commands.get(i).undo();
         }
     }
+
+    public void redo() {
+        for (Command command : commands) {
+            command.redo();
+        }
+    }
     
     public double getResult() {
         return 0; // Не має одного значення
     }
 }
 
+// Пакетна макрокоманда: операції зберігаються у примітивних масивах (код, операнд 1, операнд 2)
+// і обчислюються одним циклом з одним повторно використовуваним об'єктом ComputationData на тип операції.
+// У CommandManager пакет займає один запис історії та один суцільний блок результатів.
+class BatchMacroCommand implements Command {
+    static final byte ADD = 0;
+    static final byte SUBTRACT = 1;
+    static final byte MULTIPLY = 2;
+    static final byte DIVIDE = 3;
+
+    private byte[] operations;
+    private double[] params1;
+    private double[] params2;
+    private double[] results = new double[0];
+    private int size;
+
+    public BatchMacroCommand() {
+        this(16);
+    }
+
+    public BatchMacroCommand(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        operations = new byte[capacity];
+        params1 = new double[capacity];
+        params2 = new double[capacity];
+    }
+
+    // Код операції за символом (+, -, *, /) або -1, якщо символ невідомий
+    public static byte operationCode(String symbol) {
+        switch (symbol) {
+            case "+": return ADD;
+            case "-": return SUBTRACT;
+            case "*": return MULTIPLY;
+            case "/": return DIVIDE;
+            default: return -1;
+        }
+    }
+
+    public void addOperation(byte operation, double param1, double param2) {
+        if (operation < ADD || operation > DIVIDE) {
+            throw new IllegalArgumentException("Невідомий код операції: " + operation);
+        }
+        if (size == operations.length) {
+            int capacity = size * 2;
+            operations = Arrays.copyOf(operations, capacity);
+            params1 = Arrays.copyOf(params1, capacity);
+            params2 = Arrays.copyOf(params2, capacity);
+        }
+        operations[size] = operation;
+        params1[size] = param1;
+        params2[size] = param2;
+        size++;
+    }
+
+    public void execute() {
+        ComputationData[] computations = {
+            new AdditionComputation(0, 0), new SubtractionComputation(0, 0),
+            new MultiplicationComputation(0, 0), new DivisionComputation(0, 0)
+        };
+        if (results.length != size) {
+            results = new double[size];
+        }
+        for (int i = 0; i < size; i++) {
+            ComputationData computation = computations[operations[i]];
+            computation.setParams(params1[i], params2[i]);
+            computation.compute();
+            results[i] = computation.getResult();
+        }
+    }
+
+    // Стан операцій не змінюється, тому скасування зводиться до відкидання блоку результатів у CommandManager,
+    // а повторне застосування - до повторного додавання збережених результатів
+    public void undo() {
+    }
+
+    public void redo() {
+    }
+
+    public double getResult() {
+        return size == 0 ? 0 : results[size - 1]; // Результат останньої операції пакета
+    }
+
+    public int size() { return size; }
+
+    // Результати останнього виконання (масив не копіюється)
+    public double[] getResults() { return results; }
+}
+
+// Сховище результатів на примітивах double, розбите на блоки фіксованого розміру
+class DoubleResultStore {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private double[][] chunks = new double[4][];
+    private int size;
+    private final List<Double> view = new ResultView();
+
+    public void add(double value) {
+        int chunk = size >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new double[CHUNK_SIZE];
+        }
+        chunks[chunk][size & CHUNK_MASK] = value;
+        size++;
+    }
+
+    // Додавання блоку значень: копіювання цілими частинами блоків замість поелементного add
+    public void addAll(double[] values, int from, int count) {
+        Objects.checkFromIndexSize(from, count, values.length);
+        while (count > 0) {
+            int chunk = size >>> CHUNK_SHIFT;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new double[CHUNK_SIZE];
+            }
+            int offset = size & CHUNK_MASK;
+            int length = Math.min(count, CHUNK_SIZE - offset);
+            System.arraycopy(values, from, chunks[chunk], offset, length);
+            size += length;
+            from += length;
+            count -= length;
+        }
+    }
+
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    // Видалення останнього результату (для скасування)
+    public double removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Сховище порожнє");
+        }
+        double last = get(size - 1);
+        truncate(size - 1);
+        return last;
+    }
+
+    // Обрізання до newSize елементів; зайві блоки звільняються, один запасний лишається
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("Некоректний розмір: " + newSize);
+        }
+        size = newSize;
+        int keepChunks = (newSize >>> CHUNK_SHIFT) + 2;
+        for (int i = keepChunks; i < chunks.length && chunks[i] != null; i++) {
+            chunks[i] = null;
+        }
+    }
+
+    // Послідовний обхід без упаковки значень
+    public void forEach(DoubleConsumer action) {
+        int remaining = size;
+        for (int c = 0; remaining > 0; c++) {
+            double[] chunk = chunks[c];
+            int count = Math.min(remaining, CHUNK_SIZE);
+            for (int i = 0; i < count; i++) {
+                action.accept(chunk[i]);
+            }
+            remaining -= count;
+        }
+    }
+
+    // Представлення лише для читання для споживачів List<Double> (без копіювання)
+    public List<Double> asList() { return view; }
+
+    private class ResultView extends AbstractList<Double> implements RandomAccess {
+        public Double get(int index) { return DoubleResultStore.this.get(index); }
+        public int size() { return size; }
+    }
+}
+
+// Звітування про зміну результатів після виконання або скасування команд
+interface ResultReporter {
+    // previousSize - кількість результатів до зміни (більша за поточну після скасування)
+    void resultsChanged(DoubleResultStore results, int previousSize);
+}
+
+// Режими звітування
+enum ReportMode {
+    FULL,     // Увесь список після кожної зміни (O(N) на команду)
+    DELTA,    // Лише нові результати або кількість скасованих
+    PERIODIC, // Короткий підсумок раз на PERIODIC_INTERVAL змін
+    OFF;      // Без звітів
+
+    static final int PERIODIC_INTERVAL = 100;
+
+    public ResultReporter createReporter(AsyncConsoleSink sink) {
+        switch (this) {
+            case FULL: return new FullResultReporter(sink);
+            case DELTA: return new DeltaResultReporter(sink);
+            case PERIODIC: return new PeriodicResultReporter(sink, PERIODIC_INTERVAL);
+            default: return (results, previousSize) -> { };
+        }
+    }
+}
+
+class FullResultReporter implements ResultReporter {
+    private final AsyncConsoleSink sink;
+
+    public FullResultReporter(AsyncConsoleSink sink) { this.sink = sink; }
+
+    public void resultsChanged(DoubleResultStore results, int previousSize) {
+        sink.print("Поточні результати: " + results.asList());
+    }
+}
+
+class DeltaResultReporter implements ResultReporter {
+    private static final int MAX_SHOWN = 20; // Великі пакети не виводяться повністю
+    private final AsyncConsoleSink sink;
+
+    public DeltaResultReporter(AsyncConsoleSink sink) { this.sink = sink; }
+
+    public void resultsChanged(DoubleResultStore results, int previousSize) {
+        int size = results.size();
+        if (size < previousSize) {
+            sink.print("Скасовано результатів: " + (previousSize - size) + ", залишилось: " + size);
+            return;
+        }
+        StringBuilder line = new StringBuilder("Нові результати: [");
+        int shown = Math.min(size - previousSize, MAX_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            line.append(i == 0 ? "" : ", ").append(results.get(previousSize + i));
+        }
+        line.append(']');
+        if (size - previousSize > shown) {
+            line.append(" ... ще ").append(size - previousSize - shown);
+        }
+        sink.print(line.append(", усього: ").append(size).toString());
+    }
+}
+
+class PeriodicResultReporter implements ResultReporter {
+    private final AsyncConsoleSink sink;
+    private final int interval;
+    private long changes;
+
+    public PeriodicResultReporter(AsyncConsoleSink sink, int interval) {
+        this.sink = sink;
+        this.interval = interval;
+    }
+
+    public void resultsChanged(DoubleResultStore results, int previousSize) {
+        if (++changes % interval == 0) {
+            int size = results.size();
+            sink.print("Змін: " + changes + ", результатів: " + size
+                    + (size > 0 ? ", останній: " + results.get(size - 1) : ""));
+        }
+    }
+}
+
+// Неблокуючий вивід у консоль: рядки ставляться в обмежену чергу, а окремий потік друкує їх пачками.
+// Якщо черга переповнена, рядок відкидається (враховується лічильником), і виконання команд не чекає на консоль.
+class AsyncConsoleSink {
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object progress = new Object();
+    private final AtomicLong submitted = new AtomicLong(); // Читається й потоком flush (зокрема shutdown hook)
+    private volatile long handled; // Надруковані та відкинуті рядки
+    private final Thread writer;
+
+    public AsyncConsoleSink() {
+        writer = new Thread(this::writeLoop, "console-sink");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush)); // Не втрачаємо хвіст виводу при завершенні
+    }
+
+    public void print(String line) {
+        submitted.incrementAndGet();
+        if (!queue.offer(line)) {
+            dropped.incrementAndGet();
+            markHandled(1);
+        }
+    }
+
+    // Очікування, доки все поставлене в чергу буде надруковано (перед інтерактивним запитом)
+    public void flush() {
+        long target = submitted.get();
+        synchronized (progress) {
+            while (handled < target && writer.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder block = new StringBuilder(8192);
+        try {
+            while (true) {
+                lines.add(queue.take());
+                queue.drainTo(lines);
+                block.setLength(0);
+                long skipped = dropped.getAndSet(0);
+                if (skipped > 0) {
+                    block.append("... пропущено рядків виводу: ").append(skipped).append(System.lineSeparator());
+                }
+                for (String line : lines) {
+                    block.append(line).append(System.lineSeparator());
+                }
+                System.out.print(block);
+                System.out.flush();
+                markHandled(lines.size());
+                lines.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void markHandled(int count) {
+        synchronized (progress) {
+            handled += count;
+            progress.notifyAll();
+        }
+    }
+}
+
+// Розбір чисел безпосередньо з байтів буфера (без String і регулярних виразів, як у Scanner).
+// Швидкий шлях: до 15 значущих цифр і десятковий порядок до 22 - тоді мантиса та степінь десяти
+// представлені точно, і одне множення/ділення дає правильно округлений результат.
+// Решта (довгі мантиси, великі порядки, NaN, Infinity) передається в Double.parseDouble.
+class FastNumberParser {
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FastNumberParser() {}
+
+    // Число з байтів [start, end); пробіли по краях ігноруються
+    public static double parse(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean anyDigits = false;
+        boolean fraction = false;
+        int exponent = 0;
+        for (; i < end; i++) {
+            byte symbol = buffer.get(i);
+            if (symbol >= '0' && symbol <= '9') {
+                anyDigits = true;
+                if (mantissa != 0 || symbol != '0') {
+                    if (++significantDigits > 15) {
+                        return parseSlow(buffer, start, end);
+                    }
+                    mantissa = mantissa * 10 + (symbol - '0');
+                }
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (symbol == '.' && !fraction) {
+                fraction = true;
+            } else if ((symbol == 'e' || symbol == 'E') && anyDigits) {
+                exponent = parseExponent(buffer, i + 1, end);
+                if (exponent == Integer.MIN_VALUE) {
+                    return parseSlow(buffer, start, end);
+                }
+                break;
+            } else {
+                return parseSlow(buffer, start, end);
+            }
+        }
+        if (!anyDigits) {
+            return parseSlow(buffer, start, end);
+        }
+        double value;
+        int scale = exponent - fractionDigits;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return parseSlow(buffer, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    // Порядок після 'e'; Integer.MIN_VALUE - якщо його треба розбирати повільним шляхом
+    private static int parseExponent(ByteBuffer buffer, int i, int end) {
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 3) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            byte symbol = buffer.get(i);
+            if (symbol < '0' || symbol > '9') {
+                return Integer.MIN_VALUE;
+            }
+            exponent = exponent * 10 + (symbol - '0');
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+}
+
+// Пакетний імпорт операцій із файлу конвеєром з трьох етапів, з'єднаних обмеженими чергами:
+// розбір (окремий потік) -> обчислення пакетів (окремий потік) -> збереження в CommandManager (викликаючий потік).
+// Формати: CSV "операція,число,число" по рядку на операцію (рядки з невідомою операцією, напр. заголовок,
+// пропускаються) та двійковий *.bin - записи по 17 байт: символ операції (ASCII) і два double (big-endian).
+// Кожні BATCH_SIZE рядків стають одним BatchMacroCommand, тобто одним записом історії.
+class BulkImporter {
+    static final int RECORD_SIZE = 1 + 2 * Double.BYTES;
+    private static final int BATCH_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final BatchMacroCommand END = new BatchMacroCommand(1); // Маркер кінця потоку пакетів
+
+    private final CommandManager manager;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean stopped; // Етап обчислення або запису зупинився - розбирати далі немає сенсу
+    private long skippedRows;
+
+    public BulkImporter(CommandManager manager) {
+        this.manager = manager;
+    }
+
+    // Пакети йдуть у порядку рядків файлу, тому при помилці записуються рівно ті рядки, що стоять перед нею;
+    // їхню кількість виводимо, а самі пакети лишаються в історії і скасовуються звичайним undo
+    public void importFile(Path path) throws IOException {
+        boolean binary = path.toString().endsWith(".bin");
+        BlockingQueue<BatchMacroCommand> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<BatchMacroCommand> computed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        failure.set(null);
+        stopped = false;
+        skippedRows = 0;
+        long start = System.nanoTime();
+
+        Thread parser = new Thread(() -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (binary) {
+                    parseBinary(channel, parsed);
+                } else {
+                    parseCsv(channel, parsed);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                putUninterruptibly(parsed, END);
+            }
+        }, "import-parser");
+        // Помилка розбору не зупиняє обчислення: пакети до неї вже в черзі й мають бути записані.
+        // Після власної помилки або зупинки запису етап лише вичерпує чергу, щоб розбір не заблокувався
+        Thread computer = new Thread(() -> {
+            try {
+                for (BatchMacroCommand batch = takeUninterruptibly(parsed); batch != END; batch = takeUninterruptibly(parsed)) {
+                    if (!stopped) {
+                        try {
+                            batch.execute();
+                            putUninterruptibly(computed, batch);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                            stopped = true;
+                        }
+                    }
+                }
+            } finally {
+                putUninterruptibly(computed, END);
+            }
+        }, "import-compute");
+        parser.start();
+        computer.start();
+
+        long rows = 0;
+        BatchMacroCommand batch = null;
+        try {
+            for (batch = takeUninterruptibly(computed); batch != END; batch = takeUninterruptibly(computed)) {
+                manager.recordBatch(batch);
+                rows += batch.size();
+            }
+        } catch (RuntimeException e) {
+            // Помилка запису повертається як IOException нижче, щоб не перервати цикл меню
+            failure.compareAndSet(null, e);
+        } finally {
+            if (batch != END) {
+                // recordBatch завершився винятком: зупиняємо етапи і вичерпуємо чергу до маркера кінця,
+                // інакше потоки розбору й обчислення назавжди заблокуються на повних чергах
+                stopped = true;
+                while (takeUninterruptibly(computed) != END) {
+                    // Пакети після помилки не записуються
+                }
+            }
+        }
+        Throwable error = failure.get();
+        if (error != null) {
+            System.out.println("Імпорт перервано, записано рядків: " + rows);
+            throw error instanceof IOException ? (IOException) error : new IOException("Помилка імпорту " + path, error);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Імпортовано рядків: %d (пропущено: %d) за %.3f с, %.0f рядків/с%n",
+                rows, skippedRows, seconds, rows / Math.max(seconds, 1e-9));
+    }
+
+    // Пакет, накопичений до помилкового рядка, теж передається далі (finally), щоб записалися всі рядки перед ним
+    private void parseCsv(FileChannel channel, BlockingQueue<BatchMacroCommand> out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        BatchMacroCommand batch = new BatchMacroCommand(BATCH_SIZE);
+        long line = 0;
+        try {
+            while (!stopped) {
+                boolean endOfFile = channel.read(buffer) < 0;
+                buffer.flip();
+                int lineStart = buffer.position();
+                for (int i = lineStart; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        batch = parseLine(buffer, lineStart, i, ++line, batch, out);
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfFile) {
+                    if (lineStart < buffer.limit()) {
+                        batch = parseLine(buffer, lineStart, buffer.limit(), ++line, batch, out);
+                    }
+                    break;
+                }
+                if (lineStart == 0 && buffer.limit() == buffer.capacity()) {
+                    throw new IOException("Рядок " + (line + 1) + " довший за " + CHUNK_SIZE + " байт");
+                }
+                buffer.position(lineStart);
+                buffer.compact(); // Незавершений рядок переноситься на початок буфера
+            }
+        } finally {
+            flush(batch, out);
+        }
+    }
+
+    private BatchMacroCommand parseLine(ByteBuffer buffer, int start, int end, long line,
+                                        BatchMacroCommand batch, BlockingQueue<BatchMacroCommand> out) throws IOException {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int firstComma = indexOf(buffer, (byte) ',', start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOf(buffer, (byte) ',', firstComma + 1, end);
+        byte code = firstComma < 0 ? -1 : operationCode(buffer, start, firstComma);
+        if (secondComma < 0 || code < 0) {
+            if (!isBlank(buffer, start, end)) {
+                skippedRows++;
+            }
+            return batch;
+        }
+        try {
+            batch.addOperation(code, FastNumberParser.parse(buffer, firstComma + 1, secondComma),
+                    FastNumberParser.parse(buffer, secondComma + 1, end));
+        } catch (NumberFormatException e) {
+            throw new IOException("Некоректне число у рядку " + line, e);
+        }
+        return emitIfFull(batch, out);
+    }
+
+    private void parseBinary(FileChannel channel, BlockingQueue<BatchMacroCommand> out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE / RECORD_SIZE * RECORD_SIZE);
+        BatchMacroCommand batch = new BatchMacroCommand(BATCH_SIZE);
+        boolean endOfFile = false;
+        try {
+            while (!endOfFile && !stopped) {
+                endOfFile = channel.read(buffer) < 0;
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    byte code = operationCode(buffer.get());
+                    double param1 = buffer.getDouble();
+                    double param2 = buffer.getDouble();
+                    if (code < 0) {
+                        skippedRows++;
+                        continue;
+                    }
+                    batch.addOperation(code, param1, param2);
+                    batch = emitIfFull(batch, out);
+                }
+                if (endOfFile && buffer.hasRemaining()) {
+                    throw new IOException("Неповний запис у кінці файлу: " + buffer.remaining() + " байт");
+                }
+                buffer.compact();
+            }
+        } finally {
+            flush(batch, out);
+        }
+    }
+
+    private static BatchMacroCommand emitIfFull(BatchMacroCommand batch, BlockingQueue<BatchMacroCommand> out) {
+        if (batch.size() < BATCH_SIZE) {
+            return batch;
+        }
+        putUninterruptibly(out, batch);
+        return new BatchMacroCommand(BATCH_SIZE);
+    }
+
+    private static void flush(BatchMacroCommand batch, BlockingQueue<BatchMacroCommand> out) {
+        if (batch.size() > 0) {
+            putUninterruptibly(out, batch);
+        }
+    }
+
+    // Символ операції в полі [start, end) без пробілів по краях; -1, якщо це не одна з + - * /
+    private static byte operationCode(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end - start == 1 ? operationCode(buffer.get(start)) : -1;
+    }
+
+    // Код операції за байтом символу без створення рядка; -1, якщо це не одна з + - * /
+    private static byte operationCode(byte symbol) {
+        switch (symbol) {
+            case '+': return BatchMacroCommand.ADD;
+            case '-': return BatchMacroCommand.SUBTRACT;
+            case '*': return BatchMacroCommand.MULTIPLY;
+            case '/': return BatchMacroCommand.DIVIDE;
+            default: return -1;
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) != ' ' && buffer.get(i) != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putUninterruptibly(BlockingQueue<BatchMacroCommand> queue, BatchMacroCommand batch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(batch);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BatchMacroCommand takeUninterruptibly(BlockingQueue<BatchMacroCommand> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
+
 // Менеджер команд (Singleton)
 class CommandManager {
     private static CommandManager instance;
-    private Stack<Command> history = new Stack<>();
-    private List<Double> results = new ArrayList<>();
+    static final int HISTORY_LIMIT = 1024; // Найстаріші записи витісняються
+
+    private final Deque<HistoryEntry> history = new ArrayDeque<>();
+    private final Deque<HistoryEntry> redoStack = new ArrayDeque<>();
+    private DoubleResultStore results = new DoubleResultStore();
+    private final AsyncConsoleSink console = new AsyncConsoleSink();
+    private ResultReporter reporter = ReportMode.DELTA.createReporter(console);
 
     private CommandManager() {}
 
@@ -137,27 +947,96 @@ class CommandManager {
         return instance;
     }
 
+    public void setReportMode(ReportMode mode) {
+        reporter = mode.createReporter(console);
+    }
+
+    // Дочекатися виводу звітів (щоб інтерактивний запит з'являвся після останнього результату)
+    public void flushReports() {
+        console.flush();
+    }
+
     public void executeCommand(Command command) {
+        int previousSize = results.size();
         command.execute();
-        history.push(command);
+        redoStack.clear();
+        pushHistory(command);
         results.add(command.getResult());
-        displayResults();
+        reporter.resultsChanged(results, previousSize);
+    }
+
+    // Пакет: один запис в історії, один блок результатів і один підсумковий вивід
+    public void executeBatch(BatchMacroCommand batch) {
+        batch.execute();
+        recordBatch(batch);
+        System.out.println("Виконано пакет з " + batch.size() + " операцій, результатів усього: " + results.size());
+    }
+
+    // Запис уже виконаного пакета (обчислення могло відбутися в іншому потоці, наприклад під час імпорту)
+    public void recordBatch(BatchMacroCommand batch) {
+        int previousSize = results.size();
+        redoStack.clear();
+        pushHistory(batch);
+        results.addAll(batch.getResults(), 0, batch.size());
+        reporter.resultsChanged(results, previousSize);
     }
 
     public void undoLastCommand() {
         if (!history.isEmpty()) {
-            Command lastCommand = history.pop();
-            lastCommand.undo();
-            results.remove(results.size() - 1);
+            int previousSize = results.size();
+            HistoryEntry entry = history.pop();
+            try {
+                entry.command.undo();
+            } catch (IllegalStateException e) {
+                // Знімок витіснено: ця та старіші команди вже не можуть бути скасовані
+                history.clear();
+                System.out.println("Операцію вже неможливо скасувати: " + e.getMessage());
+                return;
+            }
+            results.truncate(entry.resultMark); // O(1) і для одиночної команди, і для пакета
+            redoStack.push(entry);
             System.out.println("Операція скасована!");
-            displayResults();
+            reporter.resultsChanged(results, previousSize);
         } else {
             System.out.println("Немає команд для скасування!");
         }
     }
 
-    private void displayResults() {
-        System.out.println("Поточні результати: " + results);
+    public void redoLastCommand() {
+        if (!redoStack.isEmpty()) {
+            int previousSize = results.size();
+            HistoryEntry entry = redoStack.pop();
+            entry.command.redo();
+            pushHistory(entry.command);
+            if (entry.command instanceof BatchMacroCommand) {
+                BatchMacroCommand batch = (BatchMacroCommand) entry.command;
+                results.addAll(batch.getResults(), 0, batch.size());
+            } else {
+                results.add(entry.command.getResult());
+            }
+            System.out.println("Операція повторена!");
+            reporter.resultsChanged(results, previousSize);
+        } else {
+            System.out.println("Немає команд для повторення!");
+        }
+    }
+
+    private void pushHistory(Command command) {
+        if (history.size() == HISTORY_LIMIT) {
+            history.removeLast();
+        }
+        history.push(new HistoryEntry(command, results.size()));
+    }
+
+    // Команда та кількість результатів до її виконання (до цієї кількості обрізається сховище при скасуванні)
+    private static final class HistoryEntry {
+        final Command command;
+        final int resultMark;
+
+        HistoryEntry(Command command, int resultMark) {
+            this.command = command;
+            this.resultMark = resultMark;
+        }
     }
 }
 
@@ -166,9 +1045,28 @@ public class Main {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         CommandManager manager = CommandManager.getInstance();
+        if (args.length > 0 && args[0].equals("import")) {
+            // Неінтерактивний режим: java Main import <файл.csv|файл.bin> [режим звітів]
+            if (args.length < 2) {
+                System.out.println("Використання: java Main import <файл.csv|файл.bin> [full|delta|periodic|off]");
+                return;
+            }
+            manager.setReportMode(args.length > 2 ? ReportMode.valueOf(args[2].toUpperCase(Locale.ROOT)) : ReportMode.OFF);
+            try {
+                new BulkImporter(manager).importFile(Paths.get(args[1]));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            manager.flushReports();
+            return;
+        }
+        if (args.length > 0) {
+            manager.setReportMode(ReportMode.valueOf(args[0].toUpperCase(Locale.ROOT))); // full, delta, periodic, off
+        }
 
         while (true) {
-            System.out.println("Оберіть операцію: +, -, *, / або undo для скасування");
+            manager.flushReports();
+            System.out.println("Оберіть операцію: +, -, *, /, batch для пакета, import для імпорту з файлу, undo для скасування або redo для повторення");
             String operation = scanner.next();
 
             if (operation.equals("undo")) {
@@ -176,6 +1074,39 @@ public class Main {
                 continue;
             }
 
+            if (operation.equals("redo")) {
+                manager.redoLastCommand();
+                continue;
+            }
+
+            if (operation.equals("import")) {
+                System.out.println("Введіть шлях до файлу (.csv або .bin):");
+                try {
+                    new BulkImporter(manager).importFile(Paths.get(scanner.next()));
+                } catch (IOException e) {
+                    System.out.println("Не вдалося імпортувати: " + e.getMessage());
+                }
+                continue;
+            }
+
+            if (operation.equals("batch")) {
+                System.out.println("Введіть кількість операцій, потім рядки: операція число число");
+                int count = scanner.nextInt();
+                BatchMacroCommand batch = new BatchMacroCommand(count);
+                for (int i = 0; i < count; i++) {
+                    byte code = BatchMacroCommand.operationCode(scanner.next());
+                    double param1 = scanner.nextDouble();
+                    double param2 = scanner.nextDouble();
+                    if (code < 0) {
+                        System.out.println("Невідома операція у рядку " + (i + 1) + ", рядок пропущено");
+                        continue;
+                    }
+                    batch.addOperation(code, param1, param2);
+                }
+                manager.executeBatch(batch);
+                continue;
+            }
+
             System.out.println("Введіть два числа:");
             double param1 = scanner.nextDouble();
             double param2 = scanner.nextDouble();
@@ -1,5 +1,14 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import java.util.zip.*;
 
 // Інтерфейс для об'єктів, які можуть бути відображені
 interface Displayable {
@@ -30,6 +39,10 @@ class AddPersonCommand implements Command {
     public void undo() {
         personsList.remove(person);
     }
+
+    public Person getPerson() {
+        return person;
+    }
 }
 
 // Макрокоманда, яка дозволяє групувати команди та виконувати їх разом
@@ -57,6 +70,7 @@ class MacroCommand implements Command {
 class CommandHistory {
     private static CommandHistory instance;
     private Stack<Command> history = new Stack<>();
+    private PersonJournal journal;
 
     private CommandHistory() {}
 
@@ -67,15 +81,330 @@ class CommandHistory {
         return instance;
     }
 
+    // Журнал, у який дописується кожна виконана та скасована команда (null - без журналу)
+    public void setJournal(PersonJournal journal) {
+        this.journal = journal;
+    }
+
+    // Команда, відновлена з журналу після перезапуску: вона вже записана в журнал, тому лише стає в історію
+    public void restoreCommand(Command command) {
+        history.push(command);
+    }
+
     public void addCommand(Command command) {
         history.push(command);
+        if (journal != null && command instanceof AddPersonCommand) {
+            journal.appendAdd(((AddPersonCommand) command).getPerson());
+        }
     }
 
     public void undoLastCommand() {
         if (!history.isEmpty()) {
             history.pop().undo();
+            if (journal != null) {
+                journal.appendUndo();
+            }
         }
     }
+
+    public void clear() {
+        history.clear();
+    }
+}
+
+// Журнал лише для дозапису: кожне додавання особи та кожне скасування зберігається окремим невеликим записом.
+// Скидання на диск (fsync) групується, при старті стан відновлюється зі знімка та журналу,
+// а після COMPACTION_THRESHOLD записів журнал ущільнюється у новий знімок.
+class PersonJournal implements Closeable {
+    private static final int MAGIC = 0x504a524e; // "PJRN"
+    private static final int HEADER_SIZE = 12;   // магічне число + покоління
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_UNDO = 2;
+    private static final int GROUP_COMMIT_SIZE = 64;
+    private static final long GROUP_COMMIT_MILLIS = 50;
+    private static final int COMPACTION_THRESHOLD = 10_000;
+
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService flusher;
+    private FileChannel channel;
+    private long generation;
+    private int records;
+    private int pending;
+
+    private PersonJournal(Path journalPath, Path snapshotPath) {
+        this.journalPath = journalPath;
+        this.snapshotPath = snapshotPath;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Відкриття журналу з відновленням стану у personsList (знімок, потім записи журналу того ж покоління)
+    public static PersonJournal open(String journalFile, String snapshotFile, List<Person> personsList) throws IOException {
+        PersonJournal journal = new PersonJournal(Paths.get(journalFile), Paths.get(snapshotFile));
+        try {
+            journal.recover(personsList);
+        } catch (IOException e) {
+            journal.close();
+            throw e;
+        }
+        journal.flusher.scheduleWithFixedDelay(journal::sync, GROUP_COMMIT_MILLIS, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    // Особи, додані записами журналу поточного покоління (і не скасовані), знову стають командами
+    // в CommandHistory, тож їх можна скасувати після перезапуску; повторно в журнал вони не дописуються.
+    // Особи зі знімка - базовий стан без історії. Записи скасування знімають спершу останню особу з журналу,
+    // а коли таких не лишилося - останню особу зі знімка (історія, що пережила ущільнення під час роботи).
+    private void recover(List<Person> personsList) throws IOException {
+        Deque<Person> fromSnapshot = new ArrayDeque<>();
+        Deque<Person> fromJournal = new ArrayDeque<>();
+        long snapshotGeneration = readGeneration(snapshotPath);
+        if (snapshotGeneration >= 0) {
+            replay(snapshotPath, personsList, fromSnapshot, new ArrayDeque<>());
+        }
+        generation = Math.max(snapshotGeneration, 0);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (readGeneration(journalPath) == generation) {
+            records = 0;
+            long valid = replay(journalPath, personsList, fromJournal, fromSnapshot);
+            channel.truncate(valid); // Відкидаємо недописаний останній запис після збою
+            channel.position(valid);
+        } else {
+            // Журнал відсутній або вже ущільнений у знімок
+            resetJournal();
+        }
+        // Історія обмежена так само, як під час роботи: журнал ущільнюється після COMPACTION_THRESHOLD записів
+        for (Iterator<Person> oldestFirst = fromJournal.descendingIterator(); oldestFirst.hasNext(); ) {
+            CommandHistory.getInstance().restoreCommand(new AddPersonCommand(personsList, oldestFirst.next()));
+        }
+    }
+
+    public void appendAdd(Person person) {
+        append(encodeAdd(person));
+    }
+
+    public void appendUndo() {
+        append(new byte[] { RECORD_UNDO });
+    }
+
+    private synchronized void append(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + payload.length);
+        buffer.putInt(payload.length).put(payload).flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            records++;
+            if (++pending >= GROUP_COMMIT_SIZE) {
+                sync();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Групове скидання на диск усіх записів, дописаних з моменту попереднього виклику
+    public synchronized void sync() {
+        if (pending == 0 || !channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.force(false);
+            pending = 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public boolean needsCompaction() {
+        return records >= COMPACTION_THRESHOLD;
+    }
+
+    // Ущільнення: поточний список записується у новий знімок, журнал починається з нового покоління
+    public synchronized void compact(List<Person> personsList) throws IOException {
+        long nextGeneration = generation + 1;
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(nextGeneration);
+            for (Person person : personsList) {
+                byte[] payload = encodeAdd(person);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+        resetJournal();
+    }
+
+    private void resetJournal() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(generation).flip();
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        records = 0;
+        pending = 0;
+    }
+
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        if (channel != null && channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+
+    private static long readGeneration(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == MAGIC ? in.readLong() : -1;
+        }
+    }
+
+    // Повторне виконання записів файлу; повертає довжину коректної частини файлу.
+    // Довжина запису, що не вміщається в решту файлу, означає пошкоджений хвіст - на ньому читання зупиняється
+    private long replay(Path path, List<Person> personsList, Deque<Person> added, Deque<Person> older) throws IOException {
+        long size = Files.size(path);
+        long valid = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            in.skipNBytes(HEADER_SIZE);
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > size - valid - Integer.BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(payload, personsList, added, older);
+                valid += Integer.BYTES + payload.length;
+                records++;
+            }
+        }
+        return valid;
+    }
+
+    private static void apply(byte[] payload, List<Person> personsList, Deque<Person> added, Deque<Person> older) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type == RECORD_UNDO) {
+            Deque<Person> undone = added.isEmpty() ? older : added;
+            if (!undone.isEmpty()) {
+                personsList.remove(undone.pop());
+            }
+            return;
+        }
+        if (type != RECORD_ADD) {
+            throw new IOException("Невідомий тип запису журналу: " + type);
+        }
+        Person person = PersonCodec.read(in);
+        personsList.add(person);
+        added.push(person);
+    }
+
+    private static byte[] encodeAdd(Person person) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_ADD);
+            PersonCodec.write(out, person);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
+
+// Вивід списку осіб великими блоками: рядки таблиці дописуються в один буфер,
+// а в канал stdout він потрапляє при заповненні (64 КБ) або в кінці сторінки.
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
 }
 
 // Клас "Person" реалізує серіалізацію та відображення
@@ -91,13 +420,36 @@ class Person implements Serializable, Displayable {
         this.password = password;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
     public void display() {
-        System.out.printf("| %-15s | %-3d |\n", name, age);
+        System.out.println(appendTo(new StringBuilder(32)));
+    }
+
+    // Рядок таблиці "| %-15s | %-3d |", дописаний у буфер без розбору шаблону форматування
+    public StringBuilder appendTo(StringBuilder buffer) {
+        buffer.append("| ").append(name);
+        for (int i = String.valueOf(name).length(); i < 15; i++) {
+            buffer.append(' ');
+        }
+        int start = buffer.append(" | ").length();
+        buffer.append(age);
+        for (int i = buffer.length() - start; i < 3; i++) {
+            buffer.append(' ');
+        }
+        return buffer.append(" |");
     }
 }
 
 // Підклас "Employee", який додає поле "position"
 class Employee extends Person {
+    private static final long serialVersionUID = -212525376328842904L; // Значення без явного поля, як у збережених persons.ser
     private String position;
 
     public Employee(String name, int age, String password, String position) {
@@ -105,20 +457,549 @@ class Employee extends Person {
         this.position = position;
     }
 
-    public void display() {
-        System.out.printf("| %-15s | %-3d | %-10s |\n", name, age, position);
+    public String getPosition() {
+        return position;
+    }
+
+    // Додає до рядка особи стовпець "%-10s |" з посадою
+    public StringBuilder appendTo(StringBuilder buffer) {
+        super.appendTo(buffer).append(' ').append(position);
+        for (int i = String.valueOf(position).length(); i < 10; i++) {
+            buffer.append(' ');
+        }
+        return buffer.append(" |");
+    }
+}
+
+// Потоковий кодек для Person та Employee: записи пишуться і читаються по одному через буферизований канал,
+// без побудови всього графа об'єктів і без таблиці посилань ObjectOutputStream.
+// Пароль не зберігається, як і поле transient при звичайній серіалізації.
+class PersonCodec {
+    static final int MAGIC = 0x50534e53; // "PSNS"
+    static final int BUFFER_SIZE = 1 << 16;
+    // Записи попередньої версії: рядки через writeUTF (не довші за 64 КБ); лише читаються
+    private static final byte KIND_PERSON_UTF = 0;
+    private static final byte KIND_EMPLOYEE_UTF = 1;
+    // Рядки як довжина (int) + байти UTF-8, без обмеження writeUTF
+    private static final byte KIND_PERSON = 2;
+    private static final byte KIND_EMPLOYEE = 3;
+    static final byte END_OF_STREAM = -1;
+    private static final int STRING_CHUNK = 1 << 16;
+    private static final int NULL_STRING = -1; // Довжина, якою позначається відсутній рядок
+
+    public static void write(DataOutput out, Person person) throws IOException {
+        out.writeByte(person instanceof Employee ? KIND_EMPLOYEE : KIND_PERSON);
+        writeString(out, person.getName());
+        out.writeInt(person.getAge());
+        if (person instanceof Employee) {
+            writeString(out, ((Employee) person).getPosition());
+        }
+    }
+
+    public static Person read(DataInput in) throws IOException {
+        return read(in.readByte(), in);
+    }
+
+    // Читання запису, тип якого вже прочитано
+    static Person read(byte kind, DataInput in) throws IOException {
+        if (kind < KIND_PERSON_UTF || kind > KIND_EMPLOYEE) {
+            throw new IOException("Невідомий тип запису: " + kind);
+        }
+        boolean legacy = kind == KIND_PERSON_UTF || kind == KIND_EMPLOYEE_UTF;
+        String name = legacy ? in.readUTF() : readString(in);
+        int age = in.readInt();
+        if (kind == KIND_PERSON || kind == KIND_PERSON_UTF) {
+            return new Person(name, age, null);
+        }
+        return new Employee(name, age, null, legacy ? in.readUTF() : readString(in));
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Буфер росте разом із фактично прочитаними байтами, тому пошкоджена довжина не виділяє зайвої пам'яті
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Некоректна довжина рядка: " + length);
+        }
+        byte[] bytes = new byte[Math.min(length, STRING_CHUNK)];
+        for (int read = 0; read < length; ) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int count = bytes.length - read;
+            in.readFully(bytes, read, count);
+            read += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeAll(String filename, Iterable<? extends Person> persons) throws IOException {
+        try (PersonWriter writer = PersonWriter.open(filename)) {
+            for (Person person : persons) {
+                writer.write(person);
+            }
+        }
+    }
+
+    // Потік осіб, що читаються з файлу по одному; потік треба закрити (try-with-resources)
+    public static Stream<Person> stream(String filename) throws IOException {
+        PersonReader reader = PersonReader.open(filename);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+}
+
+// Контейнер зі стисненням блоками: дані діляться на блоки (за замовчуванням 1 МБ), кожен стискається Deflater
+// незалежно від інших і паралельно (ForkJoinPool.commonPool()), а в кінці файлу записується індекс блоків.
+// Формат: [магічне число "BCZ1", розмір блоку] блоки... індекс (зсув, довжина стиснутого, довжина вихідного, CRC32)
+// на кожен блок, кінцівка (зсув індексу, кількість блоків, магічне число).
+class BlockCompressedOutputStream extends OutputStream {
+    static final int MAGIC = 0x42435a31; // "BCZ1"
+    static final int HEADER_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 20;
+    static final int FOOTER_SIZE = 16;
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int maxPending = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<CompressedBlock>> pending = new ArrayDeque<>();
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private byte[] block;
+    private int blockLength;
+    private int blockCount;
+    private long position = HEADER_SIZE;
+    private boolean closed;
+
+    public BlockCompressedOutputStream(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockCompressedOutputStream(Path path, int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(blockSize);
+        header.flip();
+        writeFully(header);
+    }
+
+    public void write(int value) throws IOException {
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+        block[blockLength++] = (byte) value;
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        while (length > 0) {
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+            int count = Math.min(length, blockSize - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeBlock(pending.poll());
+            }
+            indexOut.flush();
+            long indexOffset = position;
+            ByteBuffer tail = ByteBuffer.allocate(index.size() + FOOTER_SIZE);
+            tail.put(index.toByteArray()).putLong(indexOffset).putInt(blockCount).putInt(MAGIC);
+            tail.flip();
+            writeFully(tail);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+            channel.close();
+        }
+    }
+
+    // Блок передається на стиснення; завершені блоки записуються у файл строго по порядку
+    private void submitBlock() throws IOException {
+        byte[] raw = block;
+        int length = blockLength;
+        pending.add(CompletableFuture.supplyAsync(() -> CompressedBlock.compress(raw, length)));
+        block = new byte[blockSize];
+        blockLength = 0;
+        while (pending.size() > maxPending) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private void writeBlock(CompletableFuture<CompressedBlock> future) throws IOException {
+        CompressedBlock compressed;
+        try {
+            compressed = future.join();
+        } catch (CompletionException e) {
+            throw new IOException("Помилка стиснення блоку", e.getCause());
+        }
+        writeFully(ByteBuffer.wrap(compressed.data, 0, compressed.length));
+        indexOut.writeLong(position);
+        indexOut.writeInt(compressed.length);
+        indexOut.writeInt(compressed.rawLength);
+        indexOut.writeInt(compressed.crc);
+        position += compressed.length;
+        blockCount++;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class CompressedBlock {
+        final byte[] data;
+        final int length;
+        final int rawLength;
+        final int crc;
+
+        private CompressedBlock(byte[] data, int length, int rawLength, int crc) {
+            this.data = data;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+
+        static CompressedBlock compress(byte[] raw, int rawLength) {
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, rawLength);
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw, 0, rawLength);
+                deflater.finish();
+                byte[] out = new byte[rawLength / 2 + 64];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    length += deflater.deflate(out, length, out.length - length);
+                }
+                return new CompressedBlock(out, length, rawLength, (int) crc.getValue());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
+
+// Читання контейнера BlockCompressedOutputStream: наступні блоки розпаковуються паралельно наперед,
+// а індекс дозволяє перейти до будь-якої позиції (seek) чи прочитати окремий блок без розпакування попередніх.
+class BlockCompressedInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] checksums;
+    private final int maxAhead = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<byte[]>> ahead = new ArrayDeque<>();
+    private int nextBlock;      // Наступний блок для розпакування наперед
+    private byte[] current = new byte[0];
+    private int currentPosition;
+
+    public BlockCompressedInputStream(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < BlockCompressedOutputStream.HEADER_SIZE + BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            ByteBuffer header = readAt(0, BlockCompressedOutputStream.HEADER_SIZE);
+            if (header.getInt() != BlockCompressedOutputStream.MAGIC) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            int blockSize = header.getInt();
+            ByteBuffer footer = readAt(size - BlockCompressedOutputStream.FOOTER_SIZE, BlockCompressedOutputStream.FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != BlockCompressedOutputStream.MAGIC || count < 0 || blockSize <= 0
+                    || indexOffset < BlockCompressedOutputStream.HEADER_SIZE
+                    || indexOffset + (long) count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE
+                            != size - BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Пошкоджений індекс контейнера: " + path);
+            }
+            ByteBuffer index = readAt(indexOffset, count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE);
+            offsets = new long[count];
+            compressedLengths = new int[count];
+            rawLengths = new int[count];
+            checksums = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = index.getLong();
+                compressedLengths[i] = index.getInt();
+                rawLengths[i] = index.getInt();
+                checksums[i] = index.getInt();
+                // Записи індексу перевіряються до будь-якого виділення пам'яті під блоки:
+                // блок лежить між заголовком та індексом і не довший за розмір блоку з заголовка
+                if (rawLengths[i] < 0 || rawLengths[i] > blockSize || compressedLengths[i] < 0
+                        || offsets[i] < BlockCompressedOutputStream.HEADER_SIZE
+                        || offsets[i] > indexOffset - compressedLengths[i]) {
+                    throw new IOException("Пошкоджений запис індексу контейнера (блок " + i + "): " + path);
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        scheduleAhead();
+    }
+
+    // Чи записано файл у форматі контейнера (за магічним числом на початку)
+    public static boolean isCompressed(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) {
+                if (file.read(magic) < 0) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == BlockCompressedOutputStream.MAGIC;
+        }
+    }
+
+    // Відкриття файлу для читання: контейнер розпаковується, звичайний файл читається як є
+    public static InputStream open(Path path) throws IOException {
+        return isCompressed(path)
+                ? new BlockCompressedInputStream(path)
+                : new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+    }
+
+    // Розпакування одного блоку незалежно від поточної позиції читання
+    public byte[] readBlock(int block) throws IOException {
+        Objects.checkIndex(block, offsets.length);
+        byte[] compressed = new byte[compressedLengths[block]];
+        ByteBuffer target = ByteBuffer.wrap(compressed);
+        long offset = offsets[block];
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new EOFException("Неповний блок " + block);
+            }
+        }
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, length, raw.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != raw.length) {
+                throw new IOException("Неповний блок " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Пошкоджений блок " + block, e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        if ((int) crc.getValue() != checksums[block]) {
+            throw new IOException("Невідповідність контрольної суми блоку " + block);
+        }
+        return raw;
+    }
+
+    public int read() throws IOException {
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        return current[currentPosition++] & 0xFF;
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, bytes, offset, count);
+        currentPosition += count;
+        return count;
+    }
+
+    public int available() {
+        return current.length - currentPosition;
+    }
+
+    public void close() throws IOException {
+        ahead.forEach(future -> future.cancel(false));
+        ahead.clear();
+        channel.close();
+    }
+
+    private boolean advance() throws IOException {
+        while (!ahead.isEmpty()) {
+            try {
+                current = ahead.poll().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof UncheckedIOException ? ((UncheckedIOException) cause).getCause() : new IOException(cause);
+            }
+            currentPosition = 0;
+            scheduleAhead();
+            if (current.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleAhead() {
+        while (ahead.size() < maxAhead && nextBlock < offsets.length) {
+            int block = nextBlock++;
+            ahead.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readBlock(block);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
+
+// Послідовний запис осіб у файл
+class PersonWriter implements Closeable {
+    private final DataOutputStream out;
+
+    private PersonWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public static PersonWriter open(String filename) throws IOException {
+        // Записи стискаються блоками (див. BlockCompressedOutputStream)
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new BlockCompressedOutputStream(Paths.get(filename)), PersonCodec.BUFFER_SIZE));
+        out.writeInt(PersonCodec.MAGIC);
+        return new PersonWriter(out);
+    }
+
+    public void write(Person person) throws IOException {
+        PersonCodec.write(out, person);
+    }
+
+    public void close() throws IOException {
+        try {
+            out.writeByte(PersonCodec.END_OF_STREAM);
+        } finally {
+            out.close();
+        }
+    }
+}
+
+// Послідовне читання осіб із файлу у вигляді ітератора
+class PersonReader implements Iterator<Person>, Closeable {
+    private final DataInputStream in;
+    private byte nextKind;
+
+    private PersonReader(DataInputStream in) throws IOException {
+        this.in = in;
+        this.nextKind = in.readByte();
+    }
+
+    public static PersonReader open(String filename) throws IOException {
+        // Підтримуються як стиснуті, так і раніше записані нестиснуті файли
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                BlockCompressedInputStream.open(Paths.get(filename)), PersonCodec.BUFFER_SIZE));
+        try {
+            if (in.readInt() != PersonCodec.MAGIC) {
+                throw new IOException("Файл не містить записів осіб: " + filename);
+            }
+            return new PersonReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public boolean hasNext() {
+        return nextKind != PersonCodec.END_OF_STREAM;
+    }
+
+    public Person next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Person person = PersonCodec.read(nextKind, in);
+            nextKind = in.readByte();
+            return person;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() throws IOException {
+        in.close();
     }
 }
 
 // Основний клас програми, що працює з командами, серіалізацією та діалоговим інтерфейсом
 public class SerializationWithUndo {
-    private static final String FILE_NAME = "persons.ser";
+    private static final String FILE_NAME = "persons.bin";
+    private static final String LEGACY_FILE_NAME = "persons.ser";
+    private static final String JOURNAL_FILE = "persons.journal";
+    private static final String SNAPSHOT_FILE = "persons.snapshot";
     private static List<Person> personsList = new ArrayList<>();
     private static Scanner scanner = new Scanner(System.in);
+    private static PersonJournal journal;
 
     public static void main(String[] args) {
+        openJournal();
         while (true) {
-            System.out.println("1. Додайте особу\n2. Скасувати\n3. Зберегти\n4. Завантажити\n5. Дисплей\n6. Вихід");
+            System.out.println("1. Додайте особу\n2. Скасувати\n3. Зберегти\n4. Завантажити\n5. Дисплей\n6. Вихід\n7. Дисплей діапазону");
             System.out.print("Виберіть варіант: ");
             int choice = scanner.nextInt();
             scanner.nextLine();
@@ -126,9 +1007,11 @@ public class SerializationWithUndo {
             switch (choice) {
                 case 1:
                     addPerson();
+                    compactJournalIfNeeded();
                     break;
                 case 2:
                     CommandHistory.getInstance().undoLastCommand();
+                    compactJournalIfNeeded();
                     break;
                 case 3:
                     saveToFile();
@@ -140,7 +1023,15 @@ public class SerializationWithUndo {
                     displayPersons();
                     break;
                 case 6:
+                    closeJournal();
                     return;
+                case 7:
+                    System.out.print("Enter first row and row count: ");
+                    int first = scanner.nextInt();
+                    int count = scanner.nextInt();
+                    scanner.nextLine();
+                    displayPersons(first - 1, count);
+                    break;
                 default:
                     System.out.println("Invalid option!");
             }
@@ -173,28 +1064,86 @@ public class SerializationWithUndo {
         command.execute();
     }
 
+    // Відновлення списку осіб та історії команд із журналу
+    private static void openJournal() {
+        try {
+            journal = PersonJournal.open(JOURNAL_FILE, SNAPSHOT_FILE, personsList);
+            CommandHistory.getInstance().setJournal(journal);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void compactJournalIfNeeded() {
+        if (journal != null && journal.needsCompaction()) {
+            try {
+                journal.compact(personsList);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     // Метод для збереження списку осіб у файл
     private static void saveToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-            oos.writeObject(personsList);
+        try {
+            PersonCodec.writeAll(FILE_NAME, personsList);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    // Метод для завантаження списку осіб із файлу
+    // Метод для завантаження списку осіб із файлу (старі команди посилаються на попередній список,
+    // тому історія очищується, а журнал ущільнюється у знімок завантаженого списку)
     private static void loadFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-            personsList = (List<Person>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            if (!new File(FILE_NAME).exists() && new File(LEGACY_FILE_NAME).exists()) {
+                try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(LEGACY_FILE_NAME))) {
+                    personsList = (List<Person>) ois.readObject();
+                }
+            } else {
+                try (Stream<Person> persons = PersonCodec.stream(FILE_NAME)) {
+                    personsList = persons.collect(Collectors.toCollection(ArrayList::new));
+                }
+            }
+            CommandHistory.getInstance().clear();
+            if (journal != null) {
+                journal.compact(personsList);
+            }
+        } catch (IOException | UncheckedIOException | ClassNotFoundException e) {
             e.printStackTrace();
         }
     }
 
     // Метод для відображення всіх осіб у списку
     private static void displayPersons() {
-        System.out.println("--------------------------------------");
-        personsList.forEach(Person::display);
-        System.out.println("--------------------------------------");
+        displayPersons(0, personsList.size());
+    }
+
+    // Сторінка списку: не більше limit осіб, починаючи з offset
+    private static void displayPersons(int offset, int limit) {
+        int from = Math.max(0, Math.min(offset, personsList.size()));
+        int to = from + Math.max(0, Math.min(limit, personsList.size() - from));
+        OutputSink sink = OutputSink.console();
+        sink.println("--------------------------------------");
+        for (int i = from; i < to; i++) {
+            personsList.get(i).appendTo(sink.builder());
+            sink.newLine();
+        }
+        sink.println("--------------------------------------");
+        if (to - from < personsList.size()) {
+            sink.println("Особи " + (to > from ? (from + 1) + "-" + to : "0-0") + " з " + personsList.size());
+        }
+        sink.flush();
     }
 }
\ No newline at end of file
@@ -1,4 +1,9 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+import java.text.DecimalFormatSymbols;
 import java.util.*;
 
 // Інтерфейс для математичних операцій, що підтримує серіалізацію
@@ -7,6 +12,7 @@ interface MathOperation extends Serializable {
     double calculate(double a); // Метод для виконання операції з одним аргументом
     String getOperationName(); // Метод для отримання назви операції
     String formatResult(double a, double b); // Форматований вивід результату операції
+    byte getOperationCode(); // Код операції для компактного зберігання результатів
 }
 
 // Клас реалізації додавання
@@ -25,8 +31,12 @@ class Addition implements MathOperation {
         return "Додавання";
     }
     
+    public byte getOperationCode() {
+        return 1;
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
     }
 }
 
@@ -46,8 +56,178 @@ class Multiplication implements MathOperation {
         return "Множення";
     }
     
+    public byte getOperationCode() {
+        return 2;
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
+    }
+}
+
+// Форматування рядка таблиці без String.format (без розбору шаблону та упаковки аргументів).
+// Результат збігається з String.format("| %-10s | %8.2f | %8.2f | %8.2f |", ...) у поточній локалі:
+// значення, близькі до межі округлення, а також NaN, нескінченності й дуже великі числа форматуються стандартно.
+class TableRowFormatter {
+    private static final int NUMBER_WIDTH = 8;
+    private static final int NAME_WIDTH = 10;
+    private static final double FAST_PATH_LIMIT = 1e7;
+    private static final double HALF_TOLERANCE = 1e-6;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+    private static volatile Locale cachedLocale;
+    private static volatile char decimalSeparator;
+    private static volatile boolean asciiDigits;
+
+    public static String format(String name, double a, double b, double result) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendRow(buffer, name, a, b, result).toString();
+    }
+
+    // Дописує рядок таблиці у переданий буфер (буфер можна використовувати повторно)
+    public static StringBuilder appendRow(StringBuilder buffer, String name, double a, double b, double result) {
+        Locale locale = currentLocale();
+        buffer.append("| ").append(name);
+        for (int i = String.valueOf(name).length(); i < NAME_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        buffer.append(" | ");
+        appendFixed2(buffer, a, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, b, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, result, locale);
+        return buffer.append(" |");
+    }
+
+    // Число з двома знаками після коми, вирівняне праворуч до ширини 8 (аналог %8.2f)
+    private static void appendFixed2(StringBuilder buffer, double value, Locale locale) {
+        double magnitude = Math.abs(value);
+        if (!asciiDigits || !(magnitude < FAST_PATH_LIMIT)) {
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        double scaled = magnitude * 100;
+        long units = (long) scaled;
+        double fraction = scaled - units;
+        if (Math.abs(fraction - 0.5) < HALF_TOLERANCE) {
+            // Межа округлення: десяткове представлення вирішує, тому форматуємо стандартно
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        if (fraction > 0.5) {
+            units++;
+        }
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long integerPart = units / 100;
+        int cents = (int) (units % 100);
+        int length = digitCount(integerPart) + 3 + (negative ? 1 : 0);
+        for (int i = length; i < NUMBER_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        if (negative) {
+            buffer.append('-');
+        }
+        buffer.append(integerPart).append(decimalSeparator);
+        buffer.append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    // Символи локалі кешуються та оновлюються лише при зміні локалі за замовчуванням
+    private static Locale currentLocale() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale != cachedLocale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            decimalSeparator = symbols.getDecimalSeparator();
+            asciiDigits = symbols.getZeroDigit() == '0';
+            cachedLocale = locale;
+        }
+        return locale;
+    }
+}
+
+// Вивід таблиці блоками: рядки збираються у великому StringBuilder і записуються в канал stdout
+// по 64 КБ за раз, тож довга таблиця не друкується через System.out рядок за рядком.
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
     }
 }
 
@@ -70,11 +250,49 @@ class MultiplicationFactory implements MathOperationFactory {
     }
 }
 
+// Результати у вигляді стовпців примітивів: код операції, операнди та результат кожного запису
+class ResultColumns {
+    private byte[] codes = new byte[16];
+    private double[] operandsA = new double[16];
+    private double[] operandsB = new double[16];
+    private double[] values = new double[16];
+    private int size;
+    
+    public void add(byte code, double a, double b, double result) {
+        if (size == codes.length) {
+            int capacity = size * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            operandsA = Arrays.copyOf(operandsA, capacity);
+            operandsB = Arrays.copyOf(operandsB, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        codes[size] = code;
+        operandsA[size] = a;
+        operandsB[size] = b;
+        values[size] = result;
+        size++;
+    }
+    
+    public void removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Немає результатів");
+        }
+        size--;
+    }
+    
+    public int size() { return size; }
+    public byte getCode(int index) { return codes[Objects.checkIndex(index, size)]; }
+    public double getA(int index) { return operandsA[Objects.checkIndex(index, size)]; }
+    public double getB(int index) { return operandsB[Objects.checkIndex(index, size)]; }
+    public double getResult(int index) { return values[Objects.checkIndex(index, size)]; }
+}
+
 // Синглтон для управління результатами обчислень
+// Зберігає типізовані записи; рядки таблиці формуються лише під час відображення
 class CalculationResultsManager {
+    static final MathOperation[] OPERATIONS = { null, new Addition(), new Multiplication() }; // Індекс = код операції
     private static CalculationResultsManager instance;
-    private List<String> results = new ArrayList<>();
-    private Stack<String> undoStack = new Stack<>();
+    private final ResultColumns results = new ResultColumns();
     
     private CalculationResultsManager() {}
     
@@ -85,14 +303,14 @@ class CalculationResultsManager {
         return instance;
     }
     
-    public void addResult(String result) {
-        results.add(result);
-        undoStack.push(result);
+    public void addResult(MathOperation operation, double a, double b) {
+        results.add(operation.getOperationCode(), a, b, operation.calculate(a, b));
     }
     
+    // Скасування завжди прибирає останній запис (раніше - перший рядок з таким самим текстом)
     public void undoLastOperation() {
-        if (!undoStack.isEmpty()) {
-            results.remove(undoStack.pop());
+        if (results.size() > 0) {
+            results.removeLast();
             System.out.println("Останню операцію скасовано.");
         } else {
             System.out.println("Немає операцій для скасування.");
@@ -100,17 +318,31 @@ class CalculationResultsManager {
     }
     
     public void displayResults() {
-        if (results.isEmpty()) {
+        displayResults(0, results.size());
+    }
+    
+    // Сторінка таблиці: не більше limit рядків, починаючи з offset
+    public void displayResults(int offset, int limit) {
+        if (results.size() == 0) {
             System.out.println("Немає результатів.");
             return;
         }
-        System.out.println("+------------+----------+----------+----------+");
-        System.out.println("| Операція   |    A     |    B     |  Результат  |");
-        System.out.println("+------------+----------+----------+----------+");
-        for (String result : results) {
-            System.out.println(result);
+        int from = Math.max(0, Math.min(offset, results.size()));
+        int to = from + Math.max(0, Math.min(limit, results.size() - from));
+        OutputSink sink = OutputSink.console();
+        sink.println("+------------+----------+----------+----------+");
+        sink.println("| Операція   |    A     |    B     |  Результат  |");
+        sink.println("+------------+----------+----------+----------+");
+        for (int i = from; i < to; i++) {
+            TableRowFormatter.appendRow(sink.builder(), OPERATIONS[results.getCode(i)].getOperationName(),
+                    results.getA(i), results.getB(i), results.getResult(i));
+            sink.newLine();
         }
-        System.out.println("+------------+----------+----------+----------+");
+        sink.println("+------------+----------+----------+----------+");
+        if (to - from < results.size()) {
+            sink.println("Рядки " + (to > from ? (from + 1) + "-" + to : "0-0") + " з " + results.size());
+        }
+        sink.flush();
     }
 }
 
@@ -136,7 +368,7 @@ public class CalculationResults {
         CalculationResultsManager manager = CalculationResultsManager.getInstance();
         
         while (true) {
-            System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Скасувати 5) Вийти");
+            System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Скасувати 5) Вийти 6) Показати діапазон");
             int choice = scanner.nextInt();
             
             if (choice == 5) break;
@@ -151,6 +383,14 @@ public class CalculationResults {
                 continue;
             }
             
+            if (choice == 6) {
+                System.out.println("Введіть номер першого рядка та кількість рядків:");
+                int first = scanner.nextInt();
+                int count = scanner.nextInt();
+                manager.displayResults(first - 1, count);
+                continue;
+            }
+            
             System.out.println("Введіть два числа:");
             double a = scanner.nextDouble();
             double b = scanner.nextDouble();
@@ -159,7 +399,7 @@ public class CalculationResults {
             MathOperation operation = factory.createOperation();
             
             String result = operation.formatResult(a, b);
-            manager.addResult(result);
+            manager.addResult(operation, a, b);
             
             MacroCommand macro = new MacroCommand();
             macro.addCommand(() -> System.out.println("Результат: \n" + result));
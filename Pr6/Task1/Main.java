@@ -1,61 +1,539 @@
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Режим виконання завдань пулу
+enum ExecutionMode {
+    PLATFORM, // Фіксована кількість платформних потоків
+    VIRTUAL   // Віртуальний потік на кожне завдання (для завдань, що блокуються на введенні-виведенні)
+}
 
 // Пул потоків для обробки задач
 class WorkerThreadPool {
     private final ExecutorService executor;
+    private final Semaphore permits; // Обмеження одночасно виконуваних завдань у режимі VIRTUAL
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
 
     public WorkerThreadPool(int numThreads) {
-        executor = Executors.newFixedThreadPool(numThreads);
+        this(numThreads, ExecutionMode.PLATFORM);
+    }
+
+    public WorkerThreadPool(int numThreads, ExecutionMode mode) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            executor = newVirtualThreadExecutor();
+            permits = new Semaphore(numThreads);
+        } else {
+            executor = Executors.newFixedThreadPool(numThreads);
+            permits = null;
+        }
+    }
+
+    public CompletableFuture<Void> submitTask(Runnable task) {
+        return submitTask(Executors.callable(task, null));
+    }
+
+    public <T> CompletableFuture<T> submitTask(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+        try {
+            if (permits != null) {
+                permits.acquire();
+            }
+        } catch (InterruptedException e) {
+            queued.decrementAndGet();
+            future.completeExceptionally(e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            future.complete(task.call());
+        } catch (Throwable e) {
+            // Майбутнє завершується за будь-якої помилки, інакше join() очікував би вічно; Error передається далі
+            future.completeExceptionally(e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    // Кількість завдань, що очікують на виконання
+    public int getQueueDepth() {
+        return queued.get();
     }
 
-    public void submitTask(Runnable task) {
-        executor.submit(task);
+    // Кількість завдань, що виконуються зараз
+    public int getActiveCount() {
+        return active.get();
     }
 
     public void shutdown() {
         executor.shutdown();
     }
+
+    // Executors.newVirtualThreadPerTaskExecutor з'явився в Java 21; на старіших JDK завдання отримують
+    // окремий платформний потік, а паралельність так само обмежує семафор
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
+
+// План виконання обробки колекції
+enum ExecutionPlan {
+    SEQUENTIAL,     // У поточному потоці: накладні витрати fork/join більші за саму роботу
+    COMMON_POOL,    // Спільний ForkJoinPool
+    DEDICATED_POOL  // Окремий ForkJoinPool, щоб великі задачі не займали спільний пул
+}
+
+// Вибір плану за обсягом роботи: кількість елементів × відносна вартість обробки одного елемента
+class ExecutionPlanner {
+    // Спільний планувальник для процесорів, створених без явного планувальника: окремий пул один на програму
+    private static final ExecutionPlanner SHARED = new ExecutionPlanner();
+
+    private final long sequentialThreshold;
+    private final long dedicatedThreshold;
+    private final int splitThreshold;
+    private final int parallelism;
+    private ForkJoinPool dedicatedPool;
+
+    public ExecutionPlanner() {
+        this(20_000, 20_000_000, PrimitiveCollectionProcessor.SPLIT_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    }
+
+    // sequentialThreshold / dedicatedThreshold - межі обсягу роботи, splitThreshold - мінімальний розмір частини
+    public ExecutionPlanner(long sequentialThreshold, long dedicatedThreshold, int splitThreshold, int parallelism) {
+        this.sequentialThreshold = sequentialThreshold;
+        this.dedicatedThreshold = dedicatedThreshold;
+        this.splitThreshold = splitThreshold;
+        this.parallelism = parallelism;
+    }
+
+    public static ExecutionPlanner shared() {
+        return SHARED;
+    }
+
+    public ExecutionPlan plan(int size, int costPerElement) {
+        long work = (long) size * costPerElement;
+        if (work < sequentialThreshold || parallelism < 2) {
+            return ExecutionPlan.SEQUENTIAL;
+        }
+        return work < dedicatedThreshold ? ExecutionPlan.COMMON_POOL : ExecutionPlan.DEDICATED_POOL;
+    }
+
+    public int getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    public ForkJoinPool poolFor(ExecutionPlan plan) {
+        return plan == ExecutionPlan.DEDICATED_POOL ? getDedicatedPool() : ForkJoinPool.commonPool();
+    }
+
+    // Паралельний потік, запущений із завдання пулу, виконується в цьому ж пулі
+    public <T> T execute(ExecutionPlan plan, Callable<T> task) {
+        try {
+            return plan == ExecutionPlan.DEDICATED_POOL ? getDedicatedPool().submit(task).join() : task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized ForkJoinPool getDedicatedPool() {
+        if (dedicatedPool == null) {
+            dedicatedPool = new ForkJoinPool(parallelism);
+        }
+        return dedicatedPool;
+    }
+
+    // Зупиняє окремий пул після виконання поточних задач; наступна велика задача створить новий
+    public synchronized void shutdown() {
+        if (dedicatedPool != null) {
+            dedicatedPool.shutdown();
+            dedicatedPool = null;
+        }
+    }
 }
 
 // Паралельна обробка колекцій
 class ParallelCollectionProcessor {
+    private static final int SIMPLE_COST = 1;
+    private static final int FILTER_COST = 4;
     private List<Double> numbers;
+    private final ExecutionPlanner planner;
+    private volatile ExecutionPlan lastPlan;
 
     public ParallelCollectionProcessor(List<Double> numbers) {
+        this(numbers, ExecutionPlanner.shared());
+    }
+
+    public ParallelCollectionProcessor(List<Double> numbers, ExecutionPlanner planner) {
         this.numbers = numbers;
+        this.planner = planner;
     }
 
     public double findMin() {
-        return numbers.parallelStream().min(Double::compare).orElse(Double.NaN);
+        return execute(SIMPLE_COST, stream -> stream.min(Double::compare).orElse(Double.NaN));
     }
 
     public double findMax() {
-        return numbers.parallelStream().max(Double::compare).orElse(Double.NaN);
+        return execute(SIMPLE_COST, stream -> stream.max(Double::compare).orElse(Double.NaN));
     }
 
     public double calculateAverage() {
-        return numbers.parallelStream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        return execute(SIMPLE_COST, stream -> stream.mapToDouble(Double::doubleValue).average().orElse(Double.NaN));
     }
 
     public List<Double> filterGreaterThan(double threshold) {
-        return numbers.parallelStream().filter(n -> n > threshold).collect(Collectors.toList());
+        return execute(FILTER_COST, stream -> stream.filter(n -> n > threshold).collect(Collectors.toList()));
+    }
+
+    // План, обраний для останньої операції
+    public ExecutionPlan getLastPlan() {
+        return lastPlan;
+    }
+
+    private <T> T execute(int cost, Function<Stream<Double>, T> operation) {
+        ExecutionPlan plan = planner.plan(numbers.size(), cost);
+        lastPlan = plan;
+        if (plan == ExecutionPlan.SEQUENTIAL) {
+            return operation.apply(numbers.stream());
+        }
+        return planner.execute(plan, () -> operation.apply(numbers.parallelStream()));
+    }
+}
+
+// Статистика, зібрана за один прохід: кількість, сума, мінімум, максимум, середнє, дисперсія та процентилі.
+// Як DoubleSummaryStatistics, але частини, пораховані паралельно, поєднуються разом із дисперсією (формула Чана).
+// Сума компенсована (Кехен-Ньюмаєр), тому результат не втрачає точності при великій кількості частин.
+// Процентилі (за запитом у конструкторі - ущільнення в кілька разів сповільнює прохід) оцінюються ескізом
+// з рівнів по SKETCH_CAPACITY елементів: заповнений рівень впорядковується, і кожен другий елемент переходить
+// на рівень вище з подвоєною вагою. Пам'ять - O(SKETCH_CAPACITY * log n); оцінка точна, доки ущільнень
+// не було (не більше SKETCH_CAPACITY елементів), далі - наближена за рангом
+class DoubleStatistics {
+    private static final int SKETCH_CAPACITY = 256;
+    private long count;
+    private double sum;
+    private double sumCompensation; // Молодші розряди, втрачені в sum
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2; // Сума квадратів відхилень від середнього
+    private double[][] levels; // levels[h] - елементи з вагою 2^h; null, якщо процентилі не збираються
+    private int[] levelSizes;
+    private int compactions; // Парність обирає, які елементи лишаються при ущільненні, щоб не зміщувати оцінку
+
+    public DoubleStatistics() {
+        this(false);
+    }
+
+    public DoubleStatistics(boolean percentiles) {
+        if (percentiles) {
+            levels = new double[][] { new double[SKETCH_CAPACITY] };
+            levelSizes = new int[1];
+        }
+    }
+
+    public void accept(double value) {
+        count++;
+        addToSum(value);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (levels != null) {
+            addToSketch(value, 0);
+        }
+    }
+
+    public void combine(DoubleStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        count = total;
+        addToSum(other.sum);
+        addToSum(other.sumCompensation);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (levels == null || other.levels == null) {
+            levels = null; // Ескіз без частини даних дав би хибні процентилі
+            return;
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.levelSizes[level]; i++) {
+                addToSketch(other.levels[level][i], level);
+            }
+        }
+    }
+
+    private void addToSketch(double value, int level) {
+        if (level == levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            levels[level] = new double[SKETCH_CAPACITY];
+            levelSizes = Arrays.copyOf(levelSizes, level + 1);
+        }
+        levels[level][levelSizes[level]++] = value;
+        if (levelSizes[level] == SKETCH_CAPACITY) {
+            compact(level);
+        }
+    }
+
+    private void compact(int level) {
+        double[] items = levels[level];
+        Arrays.sort(items);
+        levelSizes[level] = 0;
+        for (int i = compactions++ & 1; i < SKETCH_CAPACITY; i += 2) {
+            addToSketch(items[i], level + 1);
+        }
+    }
+
+    private void addToSum(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            sumCompensation += (sum - total) + value;
+        } else {
+            sumCompensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    public long getCount() { return count; }
+    public double getSum() { return sum + sumCompensation; }
+    public double getMin() { return count > 0 ? min : Double.NaN; }
+    public double getMax() { return count > 0 ? max : Double.NaN; }
+    public double getMean() { return count > 0 ? mean : Double.NaN; }
+    public double getVariance() { return count > 0 ? m2 / count : Double.NaN; } // Дисперсія генеральної сукупності
+
+    // Процентиль p (0..100) з лінійною інтерполяцією між сусідніми за рангом елементами
+    public double getPercentile(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("Процентиль має бути в межах 0..100: " + p);
+        }
+        if (levels == null) {
+            throw new IllegalStateException("Процентилі не збиралися");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (p == 0 || p == 100) {
+            return p == 0 ? min : max; // Крайні процентилі відомі точно
+        }
+        for (int level = 0; level < levels.length; level++) {
+            Arrays.sort(levels[level], 0, levelSizes[level]);
+        }
+        double position = p / 100 * (count - 1);
+        long lower = (long) position;
+        double lowerValue = valueAtRank(lower);
+        double upperValue = valueAtRank(Math.min(lower + 1, count - 1));
+        return lowerValue + (upperValue - lowerValue) * (position - lower);
+    }
+
+    // Злиття впорядкованих рівнів до елемента, вага якого покриває ранг rank (0..count-1)
+    private double valueAtRank(long rank) {
+        int[] next = new int[levels.length];
+        long seen = 0;
+        while (true) {
+            int best = -1;
+            for (int level = 0; level < levels.length; level++) {
+                if (next[level] < levelSizes[level]
+                        && (best < 0 || Double.compare(levels[level][next[level]], levels[best][next[best]]) < 0)) {
+                    best = level;
+                }
+            }
+            seen += 1L << best;
+            double value = levels[best][next[best]++];
+            if (seen > rank) {
+                return value;
+            }
+        }
+    }
+}
+
+// Паралельна обробка масиву double без упаковки: уся статистика рахується за один прохід fork/join
+class PrimitiveCollectionProcessor {
+    static final int SPLIT_THRESHOLD = 1 << 13;
+    private static final int STATISTICS_COST = 4;
+    private static final int PERCENTILES_COST = 28; // Ущільнення ескізу сповільнює прохід приблизно в 7 разів
+    private static final int FILTER_COST = 2;
+    private final double[] numbers;
+    private final ExecutionPlanner planner;
+    private volatile ExecutionPlan lastPlan;
+
+    public PrimitiveCollectionProcessor(double[] numbers) {
+        this(numbers, ExecutionPlanner.shared());
+    }
+
+    public PrimitiveCollectionProcessor(double[] numbers, ExecutionPlanner planner) {
+        this.numbers = numbers;
+        this.planner = planner;
+    }
+
+    public DoubleStatistics statistics() {
+        return statistics(false);
+    }
+
+    // Той самий прохід, що додатково будує ескіз для getPercentile
+    public DoubleStatistics statistics(boolean percentiles) {
+        ExecutionPlan plan = plan(percentiles ? PERCENTILES_COST : STATISTICS_COST);
+        if (plan == ExecutionPlan.SEQUENTIAL) {
+            return new StatisticsTask(numbers, 0, numbers.length, Integer.MAX_VALUE, percentiles).compute();
+        }
+        return planner.poolFor(plan).invoke(
+                new StatisticsTask(numbers, 0, numbers.length, planner.getSplitThreshold(), percentiles));
+    }
+
+    // План, обраний для останньої операції
+    public ExecutionPlan getLastPlan() {
+        return lastPlan;
+    }
+
+    private ExecutionPlan plan(int cost) {
+        ExecutionPlan plan = planner.plan(numbers.length, cost);
+        lastPlan = plan;
+        return plan;
+    }
+
+    // Відбір чисел > threshold у попередньо виділений масив зі збереженням порядку; повертає кількість.
+    // Спочатку паралельно рахується кількість у кожному блоці, потім блоки паралельно пишуть у свої позиції
+    public int filterGreaterThan(double threshold, double[] out) {
+        ExecutionPlan plan = plan(FILTER_COST);
+        int blockSize = plan == ExecutionPlan.SEQUENTIAL ? Math.max(numbers.length, 1) : planner.getSplitThreshold();
+        int blocks = (int) (((long) numbers.length + blockSize - 1) / blockSize);
+        int[] offsets = new int[blocks + 1];
+        forEachBlock(plan, blocks, block -> {
+            int count = 0;
+            for (int i = block * blockSize, end = Math.min(i + blockSize, numbers.length); i < end; i++) {
+                if (numbers[i] > threshold) {
+                    count++;
+                }
+            }
+            offsets[block + 1] = count;
+        });
+        Arrays.parallelPrefix(offsets, Integer::sum);
+        int total = offsets[blocks];
+        if (out.length < total) {
+            throw new IllegalArgumentException("Масив результатів замалий: потрібно " + total);
+        }
+        forEachBlock(plan, blocks, block -> {
+            int position = offsets[block];
+            for (int i = block * blockSize, end = Math.min(i + blockSize, numbers.length); i < end; i++) {
+                if (numbers[i] > threshold) {
+                    out[position++] = numbers[i];
+                }
+            }
+        });
+        return total;
+    }
+
+    private void forEachBlock(ExecutionPlan plan, int blocks, IntConsumer action) {
+        if (plan == ExecutionPlan.SEQUENTIAL) {
+            for (int block = 0; block < blocks; block++) {
+                action.accept(block);
+            }
+            return;
+        }
+        planner.execute(plan, () -> {
+            IntStream.range(0, blocks).parallel().forEach(action);
+            return null;
+        });
+    }
+
+    private static class StatisticsTask extends RecursiveTask<DoubleStatistics> {
+        private static final long serialVersionUID = 1L;
+        private final double[] numbers;
+        private final int from;
+        private final int to;
+        private final int splitThreshold;
+        private final boolean percentiles;
+
+        StatisticsTask(double[] numbers, int from, int to, int splitThreshold, boolean percentiles) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+            this.splitThreshold = splitThreshold;
+            this.percentiles = percentiles;
+        }
+
+        protected DoubleStatistics compute() {
+            if (to - from <= splitThreshold) {
+                DoubleStatistics statistics = new DoubleStatistics(percentiles);
+                for (int i = from; i < to; i++) {
+                    statistics.accept(numbers[i]);
+                }
+                return statistics;
+            }
+            int middle = (from + to) >>> 1;
+            StatisticsTask left = new StatisticsTask(numbers, from, middle, splitThreshold, percentiles);
+            left.fork();
+            DoubleStatistics statistics = new StatisticsTask(numbers, middle, to, splitThreshold, percentiles).compute();
+            statistics.combine(left.join());
+            return statistics;
+        }
     }
 }
 
 // Основний клас
 public class Main {
     public static void main(String[] args) {
-        WorkerThreadPool workerPool = new WorkerThreadPool(4);
+        ExecutionMode mode = args.length > 0 && args[0].equals("virtual") ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+        WorkerThreadPool workerPool = new WorkerThreadPool(4, mode);
         List<Double> numbers = Arrays.asList(3.5, 7.2, 1.4, 9.8, 5.6, 4.3);
         ParallelCollectionProcessor processor = new ParallelCollectionProcessor(numbers);
 
-        workerPool.submitTask(() -> System.out.println("Мінімум: " + processor.findMin()));
-        workerPool.submitTask(() -> System.out.println("Максимум: " + processor.findMax()));
-        workerPool.submitTask(() -> System.out.println("Середнє значення: " + processor.calculateAverage()));
-        workerPool.submitTask(() -> System.out.println("Числа > 4: " + processor.filterGreaterThan(4)));
+        double[] primitives = numbers.stream().mapToDouble(Double::doubleValue).toArray();
+        PrimitiveCollectionProcessor primitiveProcessor = new PrimitiveCollectionProcessor(primitives);
+
+        CompletableFuture<?>[] tasks = {
+            // Один прохід замість окремих задач для мінімуму, максимуму та середнього
+            workerPool.submitTask(() -> {
+                DoubleStatistics statistics = primitiveProcessor.statistics(true);
+                System.out.println("Мінімум: " + statistics.getMin());
+                System.out.println("Максимум: " + statistics.getMax());
+                System.out.println("Середнє значення: " + statistics.getMean());
+                System.out.println("Дисперсія: " + statistics.getVariance());
+                System.out.println("Медіана: " + statistics.getPercentile(50));
+                System.out.println("План статистики: " + primitiveProcessor.getLastPlan());
+            }),
+            workerPool.submitTask(() -> {
+                List<Double> filtered = processor.filterGreaterThan(4);
+                System.out.println("Числа > 4: " + filtered + " (план: " + processor.getLastPlan() + ")");
+            })
+        };
+        System.out.println("Режим: " + mode + ", у черзі: " + workerPool.getQueueDepth() + ", виконується: " + workerPool.getActiveCount());
         
+        CompletableFuture.allOf(tasks).join();
         workerPool.shutdown();
+        ExecutionPlanner.shared().shutdown();
     }
 }
\ No newline at end of file
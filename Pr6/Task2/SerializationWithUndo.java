@@ -1,7 +1,17 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.text.DecimalFormatSymbols;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.*;
+import java.util.zip.*;
 
 // Інтерфейс для об'єктів, які можуть бути відображені
 interface Displayable {
@@ -16,48 +26,151 @@ interface Command {
 
 // Команда додавання особи до списку
 class AddPersonCommand implements Command {
-    private List<Person> personsList;
+    private PersonStore personStore;
     private Person person;
 
-    public AddPersonCommand(List<Person> personsList, Person person) {
-        this.personsList = personsList;
+    public AddPersonCommand(PersonStore personStore, Person person) {
+        this.personStore = personStore;
         this.person = person;
     }
 
     // Виконання команди - додавання особи до списку
     public void execute() {
-        personsList.add(person);
+        personStore.add(person);
         CommandHistory.getInstance().addCommand(this);
     }
 
     // Відміна команди - видалення особи зі списку
     public void undo() {
-        personsList.remove(person);
+        personStore.remove(person);
     }
 }
 
-// Історія виконаних команд для можливості скасування
+// Список осіб разом зі статистикою віку під одним монітором: додавання і видалення змінюють обидва атомарно.
+// Сам список - звичайний ArrayList, тому додавання не копіює масив; потокам пулу видається масив-знімок,
+// який будується лише при першому читанні після зміни.
+class PersonStore {
+    private final List<Person> persons = new ArrayList<>();
+    private final RunningStatistics ageStatistics = new RunningStatistics();
+    private Person[] snapshot = new Person[0]; // null - список змінився після останнього знімка
+
+    public synchronized void add(Person person) {
+        persons.add(person);
+        ageStatistics.add(person.getAge());
+        snapshot = null;
+    }
+
+    // Пошук з кінця: скасовуються найновіші додавання
+    public synchronized boolean remove(Person person) {
+        int index = persons.lastIndexOf(person);
+        if (index < 0) {
+            return false;
+        }
+        persons.remove(index);
+        ageStatistics.remove(person.getAge());
+        snapshot = null;
+        return true;
+    }
+
+    public synchronized void replaceAll(Collection<Person> loaded) {
+        persons.clear();
+        persons.addAll(loaded);
+        ageStatistics.clear();
+        for (Person person : loaded) {
+            ageStatistics.add(person.getAge());
+        }
+        snapshot = null;
+    }
+
+    // Незмінний для читачів знімок: масив не модифікується, лише замінюється новим після змін
+    public synchronized Person[] snapshot() {
+        if (snapshot == null) {
+            snapshot = persons.toArray(new Person[0]);
+        }
+        return snapshot;
+    }
+
+    // Показники читаються під монітором самої статистики (див. analyzeAge)
+    public RunningStatistics getAgeStatistics() {
+        return ageStatistics;
+    }
+}
+
+// Історія виконаних команд для можливості скасування.
+// Неблокуючий стек Трайбера з незмінними вузлами: додавання та скасування - одна успішна CAS-операція
+// над вершиною, тому історію можна безпечно використовувати з кількох потоків одночасно.
+// Глибина обмежена maxDepth: додавання до заповненої історії будує копію maxDepth - 1 найновіших вузлів
+// без найстаріших команд (O(maxDepth)), а наявні вузли не змінюються, тож паралельні скасування їх не бачать.
 class CommandHistory {
-    private static CommandHistory instance;
-    private Stack<Command> history = new Stack<>();
+    private static final int DEFAULT_MAX_DEPTH = Integer.getInteger("commandHistory.maxDepth", 100);
+
+    private final AtomicReference<Node> head = new AtomicReference<>();
+    private volatile int maxDepth = DEFAULT_MAX_DEPTH;
 
     private CommandHistory() {}
 
+    // Ледача ініціалізація через клас-утримувач: JVM гарантує безпечну публікацію єдиного екземпляра
+    private static class Holder {
+        static final CommandHistory INSTANCE = new CommandHistory();
+    }
+
     public static CommandHistory getInstance() {
-        if (instance == null) {
-            instance = new CommandHistory();
+        return Holder.INSTANCE;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Глибина історії має бути додатною: " + maxDepth);
         }
-        return instance;
+        this.maxDepth = maxDepth;
     }
 
     public void addCommand(Command command) {
-        history.push(command);
+        Node top;
+        Node node;
+        do {
+            top = head.get();
+            int limit = maxDepth;
+            Node below = top != null && top.depth >= limit ? copyNewest(top, limit - 1) : top;
+            node = new Node(command, below, below == null ? 1 : below.depth + 1);
+        } while (!head.compareAndSet(top, node));
     }
 
     // Відміна останньої команди
     public void undoLastCommand() {
-        if (!history.isEmpty()) {
-            history.pop().undo();
+        Node top;
+        do {
+            top = head.get();
+            if (top == null) {
+                return;
+            }
+        } while (!head.compareAndSet(top, top.next));
+        top.command.undo();
+    }
+
+    // Копія limit найновіших вузлів із точними глибинами; старіші команди стають недосяжними для скасування
+    private static Node copyNewest(Node top, int limit) {
+        Node[] kept = new Node[limit];
+        int count = 0;
+        for (Node node = top; node != null && count < limit; node = node.next) {
+            kept[count++] = node;
+        }
+        Node copy = null;
+        for (int i = count - 1; i >= 0; i--) {
+            copy = new Node(kept[i].command, copy, count - i);
+        }
+        return copy;
+    }
+
+    private static final class Node {
+        final Command command;
+        final int depth; // Кількість команд від цього вузла до дна
+        final Node next;
+
+        Node(Command command, Node next, int depth) {
+            this.command = command;
+            this.next = next;
+            this.depth = depth;
         }
     }
 }
@@ -81,102 +194,969 @@ class Person implements Serializable, Displayable {
 
     // Відображення інформації про особу
     public void display() {
-        System.out.printf("| %-15s | %-3d |\n", name, age);
+        System.out.println(appendTo(new StringBuilder(32)));
+    }
+
+    // Рядок таблиці "| %-15s | %-3d |" без розбору шаблону форматування
+    public StringBuilder appendTo(StringBuilder buffer) {
+        buffer.append("| ").append(name);
+        for (int i = String.valueOf(name).length(); i < 15; i++) {
+            buffer.append(' ');
+        }
+        int start = buffer.append(" | ").length();
+        buffer.append(age);
+        for (int i = buffer.length() - start; i < 3; i++) {
+            buffer.append(' ');
+        }
+        return buffer.append(" |");
     }
 }
 
-// Потік працівник, що обробляє завдання з черги
-class WorkerThread extends Thread {
-    private BlockingQueue<Runnable> taskQueue;
-    private volatile boolean isStopped = false;
+// Блоковий вивід списку осіб: завдання пулу пише сторінку в буфер і віддає її в канал stdout
+// кількома великими записами, а не тримає System.out на кожному рядку.
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
+
+// Контейнер зі стисненням блоками: дані діляться на блоки (за замовчуванням 1 МБ), кожен стискається Deflater
+// незалежно від інших і паралельно (ForkJoinPool.commonPool()), а в кінці файлу записується індекс блоків.
+// Формат: [магічне число "BCZ1", розмір блоку] блоки... індекс (зсув, довжина стиснутого, довжина вихідного, CRC32)
+// на кожен блок, кінцівка (зсув індексу, кількість блоків, магічне число).
+class BlockCompressedOutputStream extends OutputStream {
+    static final int MAGIC = 0x42435a31; // "BCZ1"
+    static final int HEADER_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 20;
+    static final int FOOTER_SIZE = 16;
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int maxPending = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<CompressedBlock>> pending = new ArrayDeque<>();
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private byte[] block;
+    private int blockLength;
+    private int blockCount;
+    private long position = HEADER_SIZE;
+    private boolean closed;
+
+    public BlockCompressedOutputStream(Path path) throws IOException {
+        this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockCompressedOutputStream(Path path, int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(blockSize);
+        header.flip();
+        writeFully(header);
+    }
+
+    public void write(int value) throws IOException {
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+        block[blockLength++] = (byte) value;
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        while (length > 0) {
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+            int count = Math.min(length, blockSize - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeBlock(pending.poll());
+            }
+            indexOut.flush();
+            long indexOffset = position;
+            ByteBuffer tail = ByteBuffer.allocate(index.size() + FOOTER_SIZE);
+            tail.put(index.toByteArray()).putLong(indexOffset).putInt(blockCount).putInt(MAGIC);
+            tail.flip();
+            writeFully(tail);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+            channel.close();
+        }
+    }
+
+    // Блок передається на стиснення; завершені блоки записуються у файл строго по порядку
+    private void submitBlock() throws IOException {
+        byte[] raw = block;
+        int length = blockLength;
+        pending.add(CompletableFuture.supplyAsync(() -> CompressedBlock.compress(raw, length)));
+        block = new byte[blockSize];
+        blockLength = 0;
+        while (pending.size() > maxPending) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private void writeBlock(CompletableFuture<CompressedBlock> future) throws IOException {
+        CompressedBlock compressed;
+        try {
+            compressed = future.join();
+        } catch (CompletionException e) {
+            throw new IOException("Помилка стиснення блоку", e.getCause());
+        }
+        writeFully(ByteBuffer.wrap(compressed.data, 0, compressed.length));
+        indexOut.writeLong(position);
+        indexOut.writeInt(compressed.length);
+        indexOut.writeInt(compressed.rawLength);
+        indexOut.writeInt(compressed.crc);
+        position += compressed.length;
+        blockCount++;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class CompressedBlock {
+        final byte[] data;
+        final int length;
+        final int rawLength;
+        final int crc;
+
+        private CompressedBlock(byte[] data, int length, int rawLength, int crc) {
+            this.data = data;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+
+        static CompressedBlock compress(byte[] raw, int rawLength) {
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, rawLength);
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(raw, 0, rawLength);
+                deflater.finish();
+                byte[] out = new byte[rawLength / 2 + 64];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    length += deflater.deflate(out, length, out.length - length);
+                }
+                return new CompressedBlock(out, length, rawLength, (int) crc.getValue());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
+
+// Читання контейнера BlockCompressedOutputStream: наступні блоки розпаковуються паралельно наперед,
+// а індекс дозволяє перейти до будь-якої позиції (seek) чи прочитати окремий блок без розпакування попередніх.
+class BlockCompressedInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] checksums;
+    private final int maxAhead = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private final Deque<CompletableFuture<byte[]>> ahead = new ArrayDeque<>();
+    private int nextBlock;      // Наступний блок для розпакування наперед
+    private byte[] current = new byte[0];
+    private int currentPosition;
+
+    public BlockCompressedInputStream(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < BlockCompressedOutputStream.HEADER_SIZE + BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            ByteBuffer header = readAt(0, BlockCompressedOutputStream.HEADER_SIZE);
+            if (header.getInt() != BlockCompressedOutputStream.MAGIC) {
+                throw new IOException("Файл не є стиснутим контейнером: " + path);
+            }
+            int blockSize = header.getInt();
+            ByteBuffer footer = readAt(size - BlockCompressedOutputStream.FOOTER_SIZE, BlockCompressedOutputStream.FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != BlockCompressedOutputStream.MAGIC || count < 0 || blockSize <= 0
+                    || indexOffset < BlockCompressedOutputStream.HEADER_SIZE
+                    || indexOffset + (long) count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE
+                            != size - BlockCompressedOutputStream.FOOTER_SIZE) {
+                throw new IOException("Пошкоджений індекс контейнера: " + path);
+            }
+            ByteBuffer index = readAt(indexOffset, count * BlockCompressedOutputStream.INDEX_ENTRY_SIZE);
+            offsets = new long[count];
+            compressedLengths = new int[count];
+            rawLengths = new int[count];
+            checksums = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = index.getLong();
+                compressedLengths[i] = index.getInt();
+                rawLengths[i] = index.getInt();
+                checksums[i] = index.getInt();
+                // Записи індексу перевіряються до будь-якого виділення пам'яті під блоки:
+                // блок лежить між заголовком та індексом і не довший за розмір блоку з заголовка
+                if (rawLengths[i] < 0 || rawLengths[i] > blockSize || compressedLengths[i] < 0
+                        || offsets[i] < BlockCompressedOutputStream.HEADER_SIZE
+                        || offsets[i] > indexOffset - compressedLengths[i]) {
+                    throw new IOException("Пошкоджений запис індексу контейнера (блок " + i + "): " + path);
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        scheduleAhead();
+    }
+
+    // Чи записано файл у форматі контейнера (за магічним числом на початку)
+    public static boolean isCompressed(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) {
+                if (file.read(magic) < 0) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == BlockCompressedOutputStream.MAGIC;
+        }
+    }
 
-    public WorkerThread(BlockingQueue<Runnable> taskQueue) {
-        this.taskQueue = taskQueue;
+    // Відкриття файлу для читання: контейнер розпаковується, звичайний файл читається як є
+    public static InputStream open(Path path) throws IOException {
+        return isCompressed(path)
+                ? new BlockCompressedInputStream(path)
+                : new BufferedInputStream(Files.newInputStream(path), 1 << 16);
     }
 
-    public void run() {
-        while (!isStopped) {
+    // Розпакування одного блоку незалежно від поточної позиції читання
+    public byte[] readBlock(int block) throws IOException {
+        Objects.checkIndex(block, offsets.length);
+        byte[] compressed = new byte[compressedLengths[block]];
+        ByteBuffer target = ByteBuffer.wrap(compressed);
+        long offset = offsets[block];
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new EOFException("Неповний блок " + block);
+            }
+        }
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, length, raw.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != raw.length) {
+                throw new IOException("Неповний блок " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Пошкоджений блок " + block, e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        if ((int) crc.getValue() != checksums[block]) {
+            throw new IOException("Невідповідність контрольної суми блоку " + block);
+        }
+        return raw;
+    }
+
+    public int read() throws IOException {
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        return current[currentPosition++] & 0xFF;
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+        if (currentPosition == current.length && !advance()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, bytes, offset, count);
+        currentPosition += count;
+        return count;
+    }
+
+    public int available() {
+        return current.length - currentPosition;
+    }
+
+    public void close() throws IOException {
+        ahead.forEach(future -> future.cancel(false));
+        ahead.clear();
+        channel.close();
+    }
+
+    private boolean advance() throws IOException {
+        while (!ahead.isEmpty()) {
             try {
-                Runnable task = taskQueue.take();
-                task.run();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                current = ahead.poll().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof UncheckedIOException ? ((UncheckedIOException) cause).getCause() : new IOException(cause);
+            }
+            currentPosition = 0;
+            scheduleAhead();
+            if (current.length > 0) {
+                return true;
             }
         }
+        return false;
+    }
+
+    private void scheduleAhead() {
+        while (ahead.size() < maxAhead && nextBlock < offsets.length) {
+            int block = nextBlock++;
+            ahead.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readBlock(block);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
+
+// Статистика, що оновлюється при кожному додаванні та видаленні значення (без повторного проходу по даних).
+// Кількість, сума і середнє - O(1); мінімум, максимум і медіана - через дві впорядковані мультимножини:
+// lower містить меншу половину значень (її максимум - медіана), upper - більшу.
+class RunningStatistics {
+    private final TreeMap<Double, Integer> lower = new TreeMap<>();
+    private final TreeMap<Double, Integer> upper = new TreeMap<>();
+    private int lowerSize;
+    private int upperSize;
+    private int nanCount;           // NaN не впорядковується, тому враховується лише лічильником
+    private int positiveInfinities; // Нескінченності є в мультимножинах, але не в сумі
+    private int negativeInfinities;
+    private double sum;             // Сума скінченних значень з компенсацією Ньюмаєра
+    private double compensation;
+
+    // Половину вибираємо через Double.compare - тим самим порядком, що й ключі TreeMap
+    public synchronized void add(double value) {
+        if (Double.isNaN(value)) {
+            nanCount++;
+            return;
+        }
+        if (lowerSize == 0 || Double.compare(value, lower.lastKey()) <= 0) {
+            increment(lower, value);
+            lowerSize++;
+        } else {
+            increment(upper, value);
+            upperSize++;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities++;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities++;
+        } else {
+            accumulate(value);
+        }
+        rebalance();
     }
 
-    // Зупинка потоку
+    // Видалення раніше доданого значення (наприклад, при скасуванні)
+    public synchronized void remove(double value) {
+        if (Double.isNaN(value)) {
+            if (nanCount == 0) {
+                throw new NoSuchElementException("Значення відсутнє: " + value);
+            }
+            nanCount--;
+            return;
+        }
+        if (lowerSize > 0 && Double.compare(value, lower.lastKey()) <= 0) {
+            decrement(lower, value);
+            lowerSize--;
+        } else {
+            decrement(upper, value);
+            upperSize--;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities--;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities--;
+        } else if (lowerSize + upperSize == positiveInfinities + negativeInfinities) {
+            sum = 0; // Скінченних значень не лишилося - скидаємо накопичену похибку
+            compensation = 0;
+        } else {
+            accumulate(-value);
+        }
+        rebalance();
+    }
+
+    public synchronized void clear() {
+        lower.clear();
+        upper.clear();
+        lowerSize = 0;
+        upperSize = 0;
+        nanCount = 0;
+        positiveInfinities = 0;
+        negativeInfinities = 0;
+        sum = 0;
+        compensation = 0;
+    }
+
+    public synchronized int getCount() { return lowerSize + upperSize + nanCount; }
+
+    public synchronized double getSum() {
+        if (nanCount > 0 || positiveInfinities > 0 && negativeInfinities > 0) {
+            return Double.NaN;
+        }
+        if (positiveInfinities > 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return negativeInfinities > 0 ? Double.NEGATIVE_INFINITY : sum + compensation;
+    }
+
+    public synchronized double getMean() { return getCount() == 0 ? Double.NaN : getSum() / getCount(); }
+
+    // Мінімум, максимум і медіана - лише серед впорядкованих (не NaN) значень
+    public synchronized double getMin() { return lowerSize == 0 ? Double.NaN : lower.firstKey(); }
+    public synchronized double getMax() {
+        return upperSize > 0 ? upper.lastKey() : lowerSize > 0 ? lower.lastKey() : Double.NaN;
+    }
+
+    public synchronized double getMedian() {
+        if (lowerSize == 0) {
+            return Double.NaN;
+        }
+        return lowerSize > upperSize ? lower.lastKey() : (lower.lastKey() + upper.firstKey()) / 2;
+    }
+
+    // Компенсоване додавання (Ньюмаєр): зберігає молодші розряди, втрачені в sum
+    private void accumulate(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    // Підтримуємо lowerSize == upperSize або lowerSize == upperSize + 1
+    private void rebalance() {
+        if (lowerSize > upperSize + 1) {
+            double moved = lower.lastKey();
+            decrement(lower, moved);
+            increment(upper, moved);
+            lowerSize--;
+            upperSize++;
+        } else if (upperSize > lowerSize) {
+            double moved = upper.firstKey();
+            decrement(upper, moved);
+            increment(lower, moved);
+            upperSize--;
+            lowerSize++;
+        }
+    }
+
+    private static void increment(TreeMap<Double, Integer> counts, double value) {
+        counts.merge(value, 1, Integer::sum);
+    }
+
+    private static void decrement(TreeMap<Double, Integer> counts, double value) {
+        Integer count = counts.get(value);
+        if (count == null) {
+            throw new NoSuchElementException("Значення відсутнє: " + value);
+        }
+        if (count == 1) {
+            counts.remove(value);
+        } else {
+            counts.put(value, count - 1);
+        }
+    }
+}
+
+// Джерело команд для головного циклу: інтерактивний Scanner або буферизоване читання сценарію
+interface CommandInput extends Closeable {
+    boolean hasNext();
+    int nextInt();
+    double nextDouble();
+    String nextLine(); // Решта поточного рядка
+}
+
+class ScannerCommandInput implements CommandInput {
+    private final Scanner scanner;
+
+    public ScannerCommandInput(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    public boolean hasNext() { return scanner.hasNext(); }
+    public int nextInt() { return scanner.nextInt(); }
+    public double nextDouble() { return scanner.nextDouble(); }
+    public String nextLine() { return scanner.nextLine(); }
+    public void close() { scanner.close(); }
+}
+
+// Пакетний режим: вхід читається блоками по 64 КБ, лексеми виділяються вручну (без регулярних виразів Scanner),
+// цілі числа розбираються прямо з байтів. Семантика викликів така сама, як у Scanner.
+class BufferedCommandReader implements CommandInput {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char DECIMAL_SEPARATOR =
+            DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private byte[] token = new byte[64];
+    private boolean lineOpen; // Після лексеми поточний рядок ще не дочитано
+
+    public BufferedCommandReader(InputStream in, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+    }
+
+    public boolean hasNext() {
+        skipWhitespace();
+        return peek() >= 0;
+    }
+
+    public int nextInt() {
+        int length = nextToken();
+        int i = token[0] == '-' || token[0] == '+' ? 1 : 0;
+        if (i == length) {
+            throw new InputMismatchException(new String(token, 0, length, charset));
+        }
+        long value = 0;
+        for (int j = i; j < length; j++) {
+            int digit = token[j] - '0';
+            value = value * 10 + digit;
+            if (digit < 0 || digit > 9 || value > (long) Integer.MAX_VALUE + 1) {
+                throw new InputMismatchException(new String(token, 0, length, charset));
+            }
+        }
+        value = token[0] == '-' ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new InputMismatchException(new String(token, 0, length, charset));
+        }
+        return (int) value;
+    }
+
+    // Як і в Scanner, десятковий роздільник береться з локалі за замовчуванням (для uk_UA - кома).
+    // Звичайні числа розбираються без Scanner, решту форм (групування розрядів, NaN, ∞) - через Scanner
+    public double nextDouble() {
+        int length = nextToken();
+        if (isPlainDecimal(length)) {
+            return Double.parseDouble(new String(token, 0, length, StandardCharsets.ISO_8859_1).replace(DECIMAL_SEPARATOR, '.'));
+        }
+        try (Scanner scanner = new Scanner(new String(token, 0, length, charset))) {
+            return scanner.nextDouble();
+        }
+    }
+
+    // Необов'язковий мінус, цифри ASCII і не більше одного десяткового роздільника локалі
+    private boolean isPlainDecimal(int length) {
+        boolean digits = false;
+        boolean separator = false;
+        for (int i = token[0] == '-' ? 1 : 0; i < length; i++) {
+            if (token[i] >= '0' && token[i] <= '9') {
+                digits = true;
+            } else if (token[i] == DECIMAL_SEPARATOR && !separator) {
+                separator = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    // Як і Scanner, після останньої лексеми без переведення рядка повертає залишок рядка - порожній
+    public String nextLine() {
+        if (peek() < 0) {
+            if (!lineOpen) {
+                throw new NoSuchElementException("Рядок не знайдено");
+            }
+            lineOpen = false;
+            return "";
+        }
+        lineOpen = false;
+        int length = 0;
+        for (int next = read(); next >= 0 && next != '\n'; next = read()) {
+            length = append(length, (byte) next);
+        }
+        if (length > 0 && token[length - 1] == '\r') {
+            length--;
+        }
+        return new String(token, 0, length, charset);
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Лексема до наступного пробільного символу; повертає її довжину в token
+    private int nextToken() {
+        skipWhitespace();
+        if (peek() < 0) {
+            throw new NoSuchElementException();
+        }
+        int length = 0;
+        while (peek() > ' ') {
+            length = append(length, (byte) read());
+        }
+        lineOpen = true;
+        return length;
+    }
+
+    private int append(int length, byte value) {
+        if (length == token.length) {
+            token = Arrays.copyOf(token, length * 2);
+        }
+        token[length] = value;
+        return length + 1;
+    }
+
+    private void skipWhitespace() {
+        while (peek() >= 0 && peek() <= ' ') {
+            position++;
+        }
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        int value = peek();
+        if (value >= 0) {
+            position++;
+        }
+        return value;
+    }
+
+    private boolean fill() {
+        try {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+        if (limit < 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+}
+
+// Пул працівників на основі ForkJoinPool: кожен працівник має власну чергу і "викрадає" завдання в інших.
+// Завдання, що мають виконуватися послідовно, додаються в іменовану доріжку (lane) - у межах доріжки
+// порядок зберігається, а різні доріжки та звичайні завдання виконуються паралельно.
+class WorkerPool {
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean isStopped = false;
+
+    public WorkerPool(int workers) {
+        pool = new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    public void addTask(Runnable task) {
+        submit(() -> runTask(task));
+    }
+
+    public void addTask(String lane, Runnable task) {
+        if (!isWorkerThread()) {
+            checkRunning();
+        }
+        lanes.computeIfAbsent(lane, name -> new Lane()).add(task);
+    }
+
+    // Зупинка: нові завдання відхиляються, усі вже додані виконуються, після чого потоки завершуються
     public void stopWorker() {
         isStopped = true;
-        this.interrupt();
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Завдання, додані самими працівниками, приймаються і під час зупинки (вони є частиною вже доданої роботи)
+    private void submit(Runnable action) {
+        if (isWorkerThread()) {
+            ForkJoinTask.adapt(action).fork();
+        } else {
+            checkRunning();
+            pool.execute(action);
+        }
+    }
+
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+        return current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool;
+    }
+
+    private void checkRunning() {
+        if (isStopped) {
+            throw new IllegalStateException("Пул працівників зупинено");
+        }
+    }
+
+    // Помилка завдання (зокрема AssertionError під -ea) не зупиняє працівника й доріжку.
+    // VirtualMachineError (нестача пам'яті, переповнення стека) після виводу передається далі
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            e.printStackTrace();
+            if (e instanceof VirtualMachineError) {
+                throw (VirtualMachineError) e;
+            }
+        }
+    }
+
+    // Доріжка: черга завдань, яку в кожен момент обробляє не більше одного працівника
+    private class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void add(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                submit(this::drain);
+            }
+        }
+
+        private void drain() {
+            boolean drained = false;
+            try {
+                do {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        runTask(task);
+                    }
+                    scheduled.set(false);
+                } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+                drained = true;
+            } finally {
+                if (!drained) {
+                    // Завдання кинуло VirtualMachineError: доріжка звільняється, а решта її завдань виконується новим запуском
+                    scheduled.set(false);
+                    if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                        submit(this::drain);
+                    }
+                }
+            }
+        }
     }
 }
 
 // Основний клас програми
 public class SerializationWithUndo {
     private static final String FILE_NAME = "persons.ser";
-    private static List<Person> personsList = new ArrayList<>();
-    private static BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>();
-    private static WorkerThread worker = new WorkerThread(taskQueue);
-    private static Scanner scanner = new Scanner(System.in);
+    // Список змінюється командами з головного потоку та читається завданнями пулу через знімки
+    private static final PersonStore personStore = new PersonStore();
+    private static final String PERSONS_LANE = "persons"; // Доріжка для послідовних дій над списком
+    private static WorkerPool worker = new WorkerPool(Runtime.getRuntime().availableProcessors());
+    private static CommandInput input;
+    private static boolean interactive = true; // У пакетному режимі (--batch) меню та підказки не виводяться
 
     public static void main(String[] args) {
-        worker.start(); // Запуск потоку працівника
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Сценарій зі stdin: java SerializationWithUndo --batch < commands.txt
+            interactive = false;
+            input = new BufferedCommandReader(System.in, Charset.defaultCharset());
+            useBlockOutput();
+        } else {
+            input = new ScannerCommandInput(new Scanner(System.in));
+        }
         
-        while (true) {
-            System.out.println("1. Додати особу\n2. Скасувати\n3. Зберегти\n4. Завантажити\n5. Дисплей\n6. Аналіз віку\n7. Вихід");
-            System.out.print("Виберіть варіант: ");
-            int choice = scanner.nextInt();
-            scanner.nextLine();
-            
-            switch (choice) {
-                case 1:
-                    addPerson();
-                    break;
-                case 2:
-                    CommandHistory.getInstance().undoLastCommand();
-                    break;
-                case 3:
-                    saveToFile();
-                    break;
-                case 4:
-                    loadFromFile();
-                    break;
-                case 5:
-                    displayPersons();
-                    break;
-                case 6:
-                    analyzeAge();
-                    break;
-                case 7:
-                    shutdownWorker();
+        try {
+            while (true) {
+                if (!interactive && !input.hasNext()) {
+                    shutdownWorker(); // Кінець сценарію
                     return;
-                default:
-                    System.out.println("Invalid option!");
+                }
+                prompt("1. Додати особу\n2. Скасувати\n3. Зберегти\n4. Завантажити\n5. Дисплей\n6. Аналіз віку\n7. Вихід\n8. Дисплей діапазону\n");
+                prompt("Виберіть варіант: ");
+                int choice = input.nextInt();
+                input.nextLine();
+            
+                switch (choice) {
+                    case 1:
+                        addPerson();
+                        break;
+                    case 2:
+                        worker.addTask(PERSONS_LANE, CommandHistory.getInstance()::undoLastCommand);
+                        break;
+                    case 3:
+                        saveToFile();
+                        break;
+                    case 4:
+                        loadFromFile();
+                        break;
+                    case 5:
+                        displayPersons();
+                        break;
+                    case 6:
+                        analyzeAge();
+                        break;
+                    case 7:
+                        shutdownWorker();
+                        return;
+                    case 8:
+                        prompt("Enter first row and row count: ");
+                        int first = input.nextInt();
+                        int count = input.nextInt();
+                        input.nextLine();
+                        displayPersons(first - 1, count);
+                        break;
+                    default:
+                        System.out.println("Invalid option!");
+                }
+            }
+        } finally {
+            if (!interactive) {
+                // Сценарій міг обірватися винятком: дочекаємося доданих завдань і скинемо буфер виводу
+                worker.stopWorker();
+                System.out.flush();
             }
         }
     }
 
     // Додавання особи
     private static void addPerson() {
-        System.out.print("Enter name: ");
-        String name = scanner.nextLine();
-        System.out.print("Enter age: ");
-        int age = scanner.nextInt();
-        scanner.nextLine();
-        System.out.print("Enter password: ");
-        String password = scanner.nextLine();
+        prompt("Enter name: ");
+        String name = input.nextLine();
+        prompt("Enter age: ");
+        int age = input.nextInt();
+        input.nextLine();
+        prompt("Enter password: ");
+        String password = input.nextLine();
 
         Person person = new Person(name, age, password);
-        Command command = new AddPersonCommand(personsList, person);
-        command.execute();
+        Command command = new AddPersonCommand(personStore, person);
+        worker.addTask(PERSONS_LANE, command::execute); // У порядку з іншими діями над списком
     }
 
     // Збереження списку осіб у файл
     private static void saveToFile() {
-        taskQueue.add(() -> {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE_NAME))) {
-                oos.writeObject(personsList);
+        worker.addTask(PERSONS_LANE, () -> {
+            try (ObjectOutputStream oos = new ObjectOutputStream(new BlockCompressedOutputStream(Paths.get(FILE_NAME)))) {
+                oos.writeObject(new ArrayList<>(Arrays.asList(personStore.snapshot())));
                 System.out.println("Дані збережені.");
             } catch (IOException e) {
                 e.printStackTrace();
@@ -186,9 +1166,10 @@ public class SerializationWithUndo {
 
     // Завантаження списку осіб із файлу
     private static void loadFromFile() {
-        taskQueue.add(() -> {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE_NAME))) {
-                personsList = (List<Person>) ois.readObject();
+        worker.addTask(PERSONS_LANE, () -> {
+            // Нестиснутий persons.ser попередніх версій відкривається як звичайний файл
+            try (ObjectInputStream ois = new ObjectInputStream(BlockCompressedInputStream.open(Paths.get(FILE_NAME)))) {
+                personStore.replaceAll((List<Person>) ois.readObject());
                 System.out.println("Дані завантажені.");
             } catch (IOException | ClassNotFoundException e) {
                 e.printStackTrace();
@@ -198,30 +1179,62 @@ public class SerializationWithUndo {
 
     // Відображення списку осіб
     private static void displayPersons() {
-        taskQueue.add(() -> {
-            System.out.println("--------------------------------------");
-            personsList.forEach(Person::display);
-            System.out.println("--------------------------------------");
+        displayPersons(0, Integer.MAX_VALUE);
+    }
+
+    // Сторінка списку: не більше limit осіб, починаючи з offset; таблиця виводиться блоками через OutputSink.
+    // Додавання і скасування йдуть з головного потоку, тому сторінка береться з одного знімка списку
+    private static void displayPersons(int offset, int limit) {
+        worker.addTask(PERSONS_LANE, () -> {
+            Person[] persons = personStore.snapshot();
+            int from = Math.max(0, Math.min(offset, persons.length));
+            int to = (int) Math.min(persons.length, (long) from + Math.max(0, limit));
+            OutputSink sink = OutputSink.console();
+            sink.println("--------------------------------------");
+            for (int i = from; i < to; i++) {
+                persons[i].appendTo(sink.builder());
+                sink.newLine();
+            }
+            sink.println("--------------------------------------");
+            if (to - from < persons.length) {
+                sink.println("Особи " + (to > from ? (from + 1) + "-" + to : "0-0") + " з " + persons.length);
+            }
+            sink.flush();
         });
     }
 
-    // Аналіз вікових характеристик осіб
+    // Аналіз вікових характеристик осіб: статистика підтримується інкрементально, тому список не переглядається
     private static void analyzeAge() {
-        taskQueue.add(() -> {
-            OptionalInt minAge = personsList.stream().mapToInt(Person::getAge).min();
-            OptionalInt maxAge = personsList.stream().mapToInt(Person::getAge).max();
-            OptionalDouble avgAge = personsList.stream().mapToInt(Person::getAge).average();
-
-            System.out.println("Статистика віку:");
-            System.out.println("Мінімальний вік: " + (minAge.isPresent() ? minAge.getAsInt() : "Немає даних"));
-            System.out.println("Максимальний вік: " + (maxAge.isPresent() ? maxAge.getAsInt() : "Немає даних"));
-            System.out.println("Середній вік: " + (avgAge.isPresent() ? avgAge.getAsDouble() : "Немає даних"));
+        worker.addTask(PERSONS_LANE, () -> {
+            RunningStatistics statistics = personStore.getAgeStatistics();
+            synchronized (statistics) { // Узгоджений знімок усіх показників
+                boolean empty = statistics.getCount() == 0;
+                System.out.println("Статистика віку:");
+                System.out.println("Мінімальний вік: " + (empty ? "Немає даних" : (int) statistics.getMin()));
+                System.out.println("Максимальний вік: " + (empty ? "Немає даних" : (int) statistics.getMax()));
+                System.out.println("Середній вік: " + (empty ? "Немає даних" : statistics.getMean()));
+                System.out.println("Медіанний вік: " + (empty ? "Немає даних" : statistics.getMedian()));
+            }
         });
     }
 
-    // Завершення роботи потоку
+    // Завершення роботи пулу після виконання всіх доданих завдань
     private static void shutdownWorker() {
         worker.stopWorker();
-        System.out.println("Worker thread зупинено.");
+        System.out.println("Worker pool зупинено.");
+        System.out.flush();
+    }
+
+    private static void prompt(String text) {
+        if (interactive) {
+            System.out.print(text);
+        }
+    }
+
+    // Пакетний режим: вивід накопичується у великому буфері й скидається блоками, а не після кожного рядка
+    private static void useBlockOutput() {
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false, charset));
     }
 }
\ No newline at end of file
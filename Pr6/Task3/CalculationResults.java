@@ -1,6 +1,12 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
+import java.text.DecimalFormatSymbols;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.*;
 
 //Інтерфейс для математичних операцій, що підтримує серіалізацію
@@ -9,6 +15,7 @@ interface MathOperation extends Serializable {
     double calculate(double a, double b); // Метод для виконання операції
     String getOperationName(); // Отримання назви операції
     String formatResult(double a, double b); // Форматований вивід результату
+    byte getOperationCode(); // Код операції для компактного зберігання результатів
 }
 
 // Клас, що реалізує операцію додавання
@@ -23,8 +30,12 @@ class Addition implements MathOperation {
         return "Додавання";
     }
     
+    public byte getOperationCode() {
+        return 1;
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
     }
 }
 
@@ -40,16 +51,429 @@ class Multiplication implements MathOperation {
         return "Множення";
     }
     
+    public byte getOperationCode() {
+        return 2;
+    }
+    
     public String formatResult(double a, double b) {
-        return String.format("| %-10s | %8.2f | %8.2f | %8.2f |", getOperationName(), a, b, calculate(a, b));
+        return TableRowFormatter.format(getOperationName(), a, b, calculate(a, b));
+    }
+}
+
+// Форматування рядка таблиці без String.format (без розбору шаблону та упаковки аргументів).
+// Результат збігається з String.format("| %-10s | %8.2f | %8.2f | %8.2f |", ...) у поточній локалі:
+// значення, близькі до межі округлення, а також NaN, нескінченності й дуже великі числа форматуються стандартно.
+class TableRowFormatter {
+    private static final int NUMBER_WIDTH = 8;
+    private static final int NAME_WIDTH = 10;
+    private static final double FAST_PATH_LIMIT = 1e7;
+    private static final double HALF_TOLERANCE = 1e-6;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+    private static volatile Locale cachedLocale;
+    private static volatile char decimalSeparator;
+    private static volatile boolean asciiDigits;
+
+    public static String format(String name, double a, double b, double result) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendRow(buffer, name, a, b, result).toString();
+    }
+
+    // Дописує рядок таблиці у переданий буфер (буфер можна використовувати повторно)
+    public static StringBuilder appendRow(StringBuilder buffer, String name, double a, double b, double result) {
+        Locale locale = currentLocale();
+        buffer.append("| ").append(name);
+        for (int i = String.valueOf(name).length(); i < NAME_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        buffer.append(" | ");
+        appendFixed2(buffer, a, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, b, locale);
+        buffer.append(" | ");
+        appendFixed2(buffer, result, locale);
+        return buffer.append(" |");
+    }
+
+    // Число з двома знаками після коми, вирівняне праворуч до ширини 8 (аналог %8.2f)
+    private static void appendFixed2(StringBuilder buffer, double value, Locale locale) {
+        double magnitude = Math.abs(value);
+        if (!asciiDigits || !(magnitude < FAST_PATH_LIMIT)) {
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        double scaled = magnitude * 100;
+        long units = (long) scaled;
+        double fraction = scaled - units;
+        if (Math.abs(fraction - 0.5) < HALF_TOLERANCE) {
+            // Межа округлення: десяткове представлення вирішує, тому форматуємо стандартно
+            buffer.append(String.format(locale, "%8.2f", value));
+            return;
+        }
+        if (fraction > 0.5) {
+            units++;
+        }
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long integerPart = units / 100;
+        int cents = (int) (units % 100);
+        int length = digitCount(integerPart) + 3 + (negative ? 1 : 0);
+        for (int i = length; i < NUMBER_WIDTH; i++) {
+            buffer.append(' ');
+        }
+        if (negative) {
+            buffer.append('-');
+        }
+        buffer.append(integerPart).append(decimalSeparator);
+        buffer.append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    // Символи локалі кешуються та оновлюються лише при зміні локалі за замовчуванням
+    private static Locale currentLocale() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale != cachedLocale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            decimalSeparator = symbols.getDecimalSeparator();
+            asciiDigits = symbols.getZeroDigit() == '0';
+            cachedLocale = locale;
+        }
+        return locale;
+    }
+}
+
+// Результати обчислень у вигляді примітивних колонок (код операції, A, B, результат)
+class ResultColumns {
+    private byte[] codes = new byte[16];
+    private double[] operandsA = new double[16];
+    private double[] operandsB = new double[16];
+    private double[] values = new double[16];
+    private int size;
+    
+    public void add(byte code, double a, double b, double result) {
+        if (size == codes.length) {
+            int capacity = Math.max(16, size * 2); // Копія сторінки може бути порожньою
+            codes = Arrays.copyOf(codes, capacity);
+            operandsA = Arrays.copyOf(operandsA, capacity);
+            operandsB = Arrays.copyOf(operandsB, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        codes[size] = code;
+        operandsA[size] = a;
+        operandsB[size] = b;
+        values[size] = result;
+        size++;
+    }
+    
+    public void removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Немає результатів");
+        }
+        size--;
+    }
+    
+    // Незалежна копія записів [from, to): сторінку можна виводити, не тримаючи доступ до оригіналу
+    public ResultColumns copyRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        ResultColumns copy = new ResultColumns();
+        copy.codes = Arrays.copyOfRange(codes, from, to);
+        copy.operandsA = Arrays.copyOfRange(operandsA, from, to);
+        copy.operandsB = Arrays.copyOfRange(operandsB, from, to);
+        copy.values = Arrays.copyOfRange(values, from, to);
+        copy.size = to - from;
+        return copy;
+    }
+    
+    public int size() { return size; }
+    public byte getCode(int index) { return codes[Objects.checkIndex(index, size)]; }
+    public double getA(int index) { return operandsA[Objects.checkIndex(index, size)]; }
+    public double getB(int index) { return operandsB[Objects.checkIndex(index, size)]; }
+    public double getResult(int index) { return values[Objects.checkIndex(index, size)]; }
+}
+
+// Статистика, що оновлюється при кожному додаванні та видаленні значення (без повторного проходу по даних).
+// Кількість, сума і середнє - O(1); мінімум, максимум і медіана - через дві впорядковані мультимножини:
+// lower містить меншу половину значень (її максимум - медіана), upper - більшу.
+class RunningStatistics {
+    private final TreeMap<Double, Integer> lower = new TreeMap<>();
+    private final TreeMap<Double, Integer> upper = new TreeMap<>();
+    private int lowerSize;
+    private int upperSize;
+    private int nanCount;           // NaN не впорядковується, тому враховується лише лічильником
+    private int positiveInfinities; // Нескінченності є в мультимножинах, але не в сумі
+    private int negativeInfinities;
+    private double sum;             // Сума скінченних значень з компенсацією Ньюмаєра
+    private double compensation;
+
+    // Половину вибираємо через Double.compare - тим самим порядком, що й ключі TreeMap
+    public synchronized void add(double value) {
+        if (Double.isNaN(value)) {
+            nanCount++;
+            return;
+        }
+        if (lowerSize == 0 || Double.compare(value, lower.lastKey()) <= 0) {
+            increment(lower, value);
+            lowerSize++;
+        } else {
+            increment(upper, value);
+            upperSize++;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities++;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities++;
+        } else {
+            accumulate(value);
+        }
+        rebalance();
+    }
+
+    // Видалення раніше доданого значення (наприклад, при скасуванні)
+    public synchronized void remove(double value) {
+        if (Double.isNaN(value)) {
+            if (nanCount == 0) {
+                throw new NoSuchElementException("Значення відсутнє: " + value);
+            }
+            nanCount--;
+            return;
+        }
+        if (lowerSize > 0 && Double.compare(value, lower.lastKey()) <= 0) {
+            decrement(lower, value);
+            lowerSize--;
+        } else {
+            decrement(upper, value);
+            upperSize--;
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities--;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities--;
+        } else if (lowerSize + upperSize == positiveInfinities + negativeInfinities) {
+            sum = 0; // Скінченних значень не лишилося - скидаємо накопичену похибку
+            compensation = 0;
+        } else {
+            accumulate(-value);
+        }
+        rebalance();
+    }
+
+    public synchronized void clear() {
+        lower.clear();
+        upper.clear();
+        lowerSize = 0;
+        upperSize = 0;
+        nanCount = 0;
+        positiveInfinities = 0;
+        negativeInfinities = 0;
+        sum = 0;
+        compensation = 0;
+    }
+
+    public synchronized int getCount() { return lowerSize + upperSize + nanCount; }
+
+    public synchronized double getSum() {
+        if (nanCount > 0 || positiveInfinities > 0 && negativeInfinities > 0) {
+            return Double.NaN;
+        }
+        if (positiveInfinities > 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return negativeInfinities > 0 ? Double.NEGATIVE_INFINITY : sum + compensation;
+    }
+
+    public synchronized double getMean() { return getCount() == 0 ? Double.NaN : getSum() / getCount(); }
+
+    // Мінімум, максимум і медіана - лише серед впорядкованих (не NaN) значень
+    public synchronized double getMin() { return lowerSize == 0 ? Double.NaN : lower.firstKey(); }
+    public synchronized double getMax() {
+        return upperSize > 0 ? upper.lastKey() : lowerSize > 0 ? lower.lastKey() : Double.NaN;
+    }
+
+    public synchronized double getMedian() {
+        if (lowerSize == 0) {
+            return Double.NaN;
+        }
+        return lowerSize > upperSize ? lower.lastKey() : (lower.lastKey() + upper.firstKey()) / 2;
+    }
+
+    // Компенсоване додавання (Ньюмаєр): зберігає молодші розряди, втрачені в sum
+    private void accumulate(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    // Підтримуємо lowerSize == upperSize або lowerSize == upperSize + 1
+    private void rebalance() {
+        if (lowerSize > upperSize + 1) {
+            double moved = lower.lastKey();
+            decrement(lower, moved);
+            increment(upper, moved);
+            lowerSize--;
+            upperSize++;
+        } else if (upperSize > lowerSize) {
+            double moved = upper.firstKey();
+            decrement(upper, moved);
+            increment(lower, moved);
+            upperSize--;
+            lowerSize++;
+        }
+    }
+
+    private static void increment(TreeMap<Double, Integer> counts, double value) {
+        counts.merge(value, 1, Integer::sum);
+    }
+
+    private static void decrement(TreeMap<Double, Integer> counts, double value) {
+        Integer count = counts.get(value);
+        if (count == null) {
+            throw new NoSuchElementException("Значення відсутнє: " + value);
+        }
+        if (count == 1) {
+            counts.remove(value);
+        } else {
+            counts.put(value, count - 1);
+        }
+    }
+}
+
+// Регресійні перевірки RunningStatistics (виконуються з main при запуску з -ea)
+class RunningStatisticsTest {
+    public static void runTests() {
+        RunningStatistics statistics = new RunningStatistics();
+        statistics.add(-0.0); // Наприклад, "-5 * 0"
+        statistics.add(0.0);  // "0 + 0"
+        statistics.remove(0.0);
+        assert statistics.getCount() == 1 && Double.compare(statistics.getMedian(), -0.0) == 0 : "Test failed for signed zero!";
+        statistics.remove(-0.0);
+        assert statistics.getCount() == 0 : "Test failed for removing signed zero!";
+
+        statistics.add(1.0);
+        statistics.add(Double.NaN);
+        assert statistics.getCount() == 2 && Double.isNaN(statistics.getMean()) : "Test failed for NaN mean!";
+        assert statistics.getMedian() == 1.0 && statistics.getMax() == 1.0 : "Test failed for NaN ordering!";
+        statistics.remove(Double.NaN);
+        assert statistics.getMean() == 1.0 : "Test failed for removing NaN!";
+
+        statistics.add(Double.POSITIVE_INFINITY);
+        assert statistics.getMean() == Double.POSITIVE_INFINITY && statistics.getMax() == Double.POSITIVE_INFINITY : "Test failed for infinity!";
+        statistics.add(Double.NEGATIVE_INFINITY);
+        assert Double.isNaN(statistics.getSum()) && statistics.getMin() == Double.NEGATIVE_INFINITY : "Test failed for opposite infinities!";
+        statistics.remove(Double.POSITIVE_INFINITY);
+        statistics.remove(Double.NEGATIVE_INFINITY);
+        assert statistics.getMean() == 1.0 : "Test failed for removing infinities!";
+
+        statistics.add(1e17);
+        statistics.remove(1e17);
+        assert statistics.getMean() == 1.0 : "Test failed for compensated sum!";
+        statistics.remove(1.0);
+        assert statistics.getCount() == 0 && statistics.getSum() == 0.0 : "Test failed for emptied statistics!";
+
+        try {
+            statistics.remove(Double.NaN);
+            assert false : "Test failed for removing absent NaN!";
+        } catch (NoSuchElementException expected) {
+            // Очікувано: значення не додавалося
+        }
+        System.out.println("Всі тести зроблені!");
+    }
+}
+
+// Блоковий вивід у stdout для завдань пулу: сторінка таблиці форматується в буфер і записується
+// в канал великими шматками, а не окремим System.out.println на кожен рядок.
+class OutputSink {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final StringBuilder text = new StringBuilder(BLOCK_SIZE + 256);
+    private final ByteBuffer bytes;
+    private final String lineSeparator = System.lineSeparator();
+
+    private OutputSink(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BLOCK_SIZE * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    // Стандартний вивід у кодуванні System.out; перед першим блоком скидається те, що вже є в System.out
+    public static OutputSink console() {
+        System.out.flush();
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        return new OutputSink(new FileOutputStream(FileDescriptor.out).getChannel(), charset);
+    }
+
+    // Буфер поточного рядка для форматувальників, що дописують у StringBuilder
+    public StringBuilder builder() {
+        return text;
+    }
+
+    public OutputSink println(CharSequence value) {
+        text.append(value);
+        return newLine();
+    }
+
+    // Завершення рядка; повний блок записується в канал
+    public OutputSink newLine() {
+        text.append(lineSeparator);
+        if (text.length() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+        return this;
+    }
+
+    public void flush() {
+        writeBlock();
+    }
+
+    private void writeBlock() {
+        if (text.length() == 0) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                drain();
+            }
+            encoder.flush(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
     }
 }
 
 // Менеджер для управління результатами обчислень (реалізація Singleton)
+// Зберігає типізовані записи; рядки таблиці формуються лише під час відображення
 class CalculationResultsManager {
+    static final MathOperation[] OPERATIONS = { null, new Addition(), new Multiplication() }; // Індекс = код операції
     private static CalculationResultsManager instance;
-    private List<String> results = Collections.synchronizedList(new ArrayList<>()); // Список для збереження результатів
-    private Stack<String> undoStack = new Stack<>(); // Стек для операцій скасування
+    private final ResultColumns results = new ResultColumns(); // Доступ лише під монітором менеджера
+    private final RunningStatistics statistics = new RunningStatistics(); // Оновлюється разом із results
     
     private CalculationResultsManager() {}
     
@@ -60,14 +484,17 @@ class CalculationResultsManager {
         return instance;
     }
     
-    public void addResult(String result) {
-        results.add(result);
-        undoStack.push(result);
+    public synchronized void addResult(MathOperation operation, double a, double b) {
+        double result = operation.calculate(a, b);
+        results.add(operation.getOperationCode(), a, b, result);
+        statistics.add(result);
     }
     
-    public void undoLastOperation() {
-        if (!undoStack.isEmpty()) {
-            results.remove(undoStack.pop());
+    // Скасування завжди прибирає останній запис
+    public synchronized void undoLastOperation() {
+        if (results.size() > 0) {
+            statistics.remove(results.getResult(results.size() - 1));
+            results.removeLast();
             System.out.println("Останню операцію скасовано.");
         } else {
             System.out.println("Немає операцій для скасування.");
@@ -75,104 +502,410 @@ class CalculationResultsManager {
     }
     
     public void displayResults() {
-        results.forEach(System.out::println);
+        displayResults(0, Integer.MAX_VALUE);
     }
     
-    public List<Double> getResultValues() {
-        return results.parallelStream()
-                .map(s -> Double.parseDouble(s.replaceAll("[^0-9.]+", "").trim()))
-                .collect(Collectors.toList());
+    // Сторінка таблиці: не більше limit рядків, починаючи з offset.
+    // Під монітором менеджера лише копіюється діапазон записів; форматування та вивід блоками
+    // відбуваються вже без нього, тож addResult і undo з інших потоків не чекають на консоль
+    public void displayResults(int offset, int limit) {
+        ResultColumns page;
+        int from;
+        int total;
+        synchronized (this) {
+            total = results.size();
+            from = Math.max(0, Math.min(offset, total));
+            page = results.copyRange(from, from + Math.max(0, Math.min(limit, total - from)));
+        }
+        OutputSink sink = OutputSink.console();
+        for (int i = 0; i < page.size(); i++) {
+            TableRowFormatter.appendRow(sink.builder(), OPERATIONS[page.getCode(i)].getOperationName(),
+                    page.getA(i), page.getB(i), page.getResult(i));
+            sink.newLine();
+        }
+        if (page.size() < total) {
+            sink.println("Рядки " + (page.size() > 0 ? (from + 1) + "-" + (from + page.size()) : "0-0") + " з " + total);
+        }
+        sink.flush();
     }
+    
+    public synchronized void displayStatistics() {
+        System.out.println("Мінімум: " + statistics.getMin());
+        System.out.println("Максимум: " + statistics.getMax());
+        System.out.println("Середнє: " + statistics.getMean());
+        System.out.println("Медіана: " + statistics.getMedian());
+    }
+}
+
+// Джерело команд для головного циклу: інтерактивний Scanner або буферизоване читання сценарію
+interface CommandInput extends Closeable {
+    boolean hasNext();
+    int nextInt();
+    double nextDouble();
+    String nextLine(); // Решта поточного рядка
 }
 
-// Потік для обробки завдань у черзі (Worker Thread)
-class WorkerThread extends Thread {
-    private BlockingQueue<Runnable> taskQueue;
+class ScannerCommandInput implements CommandInput {
+    private final Scanner scanner;
+
+    public ScannerCommandInput(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    public boolean hasNext() { return scanner.hasNext(); }
+    public int nextInt() { return scanner.nextInt(); }
+    public double nextDouble() { return scanner.nextDouble(); }
+    public String nextLine() { return scanner.nextLine(); }
+    public void close() { scanner.close(); }
+}
+
+// Пакетний режим: вхід читається блоками по 64 КБ, лексеми виділяються вручну (без регулярних виразів Scanner),
+// цілі числа розбираються прямо з байтів. Семантика викликів така сама, як у Scanner.
+class BufferedCommandReader implements CommandInput {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char DECIMAL_SEPARATOR =
+            DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private byte[] token = new byte[64];
+    private boolean lineOpen; // Після лексеми поточний рядок ще не дочитано
+
+    public BufferedCommandReader(InputStream in, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+    }
+
+    public boolean hasNext() {
+        skipWhitespace();
+        return peek() >= 0;
+    }
+
+    public int nextInt() {
+        int length = nextToken();
+        int i = token[0] == '-' || token[0] == '+' ? 1 : 0;
+        if (i == length) {
+            throw new InputMismatchException(new String(token, 0, length, charset));
+        }
+        long value = 0;
+        for (int j = i; j < length; j++) {
+            int digit = token[j] - '0';
+            value = value * 10 + digit;
+            if (digit < 0 || digit > 9 || value > (long) Integer.MAX_VALUE + 1) {
+                throw new InputMismatchException(new String(token, 0, length, charset));
+            }
+        }
+        value = token[0] == '-' ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new InputMismatchException(new String(token, 0, length, charset));
+        }
+        return (int) value;
+    }
+
+    // Як і в Scanner, десятковий роздільник береться з локалі за замовчуванням (для uk_UA - кома).
+    // Звичайні числа розбираються без Scanner, решту форм (групування розрядів, NaN, ∞) - через Scanner
+    public double nextDouble() {
+        int length = nextToken();
+        if (isPlainDecimal(length)) {
+            return Double.parseDouble(new String(token, 0, length, StandardCharsets.ISO_8859_1).replace(DECIMAL_SEPARATOR, '.'));
+        }
+        try (Scanner scanner = new Scanner(new String(token, 0, length, charset))) {
+            return scanner.nextDouble();
+        }
+    }
+
+    // Необов'язковий мінус, цифри ASCII і не більше одного десяткового роздільника локалі
+    private boolean isPlainDecimal(int length) {
+        boolean digits = false;
+        boolean separator = false;
+        for (int i = token[0] == '-' ? 1 : 0; i < length; i++) {
+            if (token[i] >= '0' && token[i] <= '9') {
+                digits = true;
+            } else if (token[i] == DECIMAL_SEPARATOR && !separator) {
+                separator = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    // Як і Scanner, після останньої лексеми без переведення рядка повертає залишок рядка - порожній
+    public String nextLine() {
+        if (peek() < 0) {
+            if (!lineOpen) {
+                throw new NoSuchElementException("Рядок не знайдено");
+            }
+            lineOpen = false;
+            return "";
+        }
+        lineOpen = false;
+        int length = 0;
+        for (int next = read(); next >= 0 && next != '\n'; next = read()) {
+            length = append(length, (byte) next);
+        }
+        if (length > 0 && token[length - 1] == '\r') {
+            length--;
+        }
+        return new String(token, 0, length, charset);
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Лексема до наступного пробільного символу; повертає її довжину в token
+    private int nextToken() {
+        skipWhitespace();
+        if (peek() < 0) {
+            throw new NoSuchElementException();
+        }
+        int length = 0;
+        while (peek() > ' ') {
+            length = append(length, (byte) read());
+        }
+        lineOpen = true;
+        return length;
+    }
+
+    private int append(int length, byte value) {
+        if (length == token.length) {
+            token = Arrays.copyOf(token, length * 2);
+        }
+        token[length] = value;
+        return length + 1;
+    }
+
+    private void skipWhitespace() {
+        while (peek() >= 0 && peek() <= ' ') {
+            position++;
+        }
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        int value = peek();
+        if (value >= 0) {
+            position++;
+        }
+        return value;
+    }
+
+    private boolean fill() {
+        try {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+        if (limit < 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+}
+
+// Пул працівників на основі ForkJoinPool: кожен працівник має власну чергу і "викрадає" завдання в інших.
+// Завдання, що мають виконуватися послідовно, додаються в іменовану доріжку (lane) - у межах доріжки
+// порядок зберігається, а різні доріжки та звичайні завдання виконуються паралельно.
+class WorkerPool {
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
     private volatile boolean isStopped = false;
-    
-    public WorkerThread() {
-        taskQueue = new LinkedBlockingQueue<>();
-        start(); // Запускаємо потік
+
+    public WorkerPool(int workers) {
+        pool = new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
     }
-    
+
     public void addTask(Runnable task) {
+        submit(() -> runTask(task));
+    }
+
+    public void addTask(String lane, Runnable task) {
+        if (!isWorkerThread()) {
+            checkRunning();
+        }
+        lanes.computeIfAbsent(lane, name -> new Lane()).add(task);
+    }
+
+    // Зупинка: нові завдання відхиляються, усі вже додані виконуються, після чого потоки завершуються
+    public void stopWorker() {
+        isStopped = true;
+        pool.shutdown();
         try {
-            taskQueue.put(task);
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
-    
-    public void run() {
-        while (!isStopped || !taskQueue.isEmpty()) {
+
+    // Завдання, додані самими працівниками, приймаються і під час зупинки (вони є частиною вже доданої роботи)
+    private void submit(Runnable action) {
+        if (isWorkerThread()) {
+            ForkJoinTask.adapt(action).fork();
+        } else {
+            checkRunning();
+            pool.execute(action);
+        }
+    }
+
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+        return current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool;
+    }
+
+    private void checkRunning() {
+        if (isStopped) {
+            throw new IllegalStateException("Пул працівників зупинено");
+        }
+    }
+
+    // Помилка завдання (зокрема AssertionError під -ea) не зупиняє працівника й доріжку.
+    // VirtualMachineError (нестача пам'яті, переповнення стека) після виводу передається далі
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            e.printStackTrace();
+            if (e instanceof VirtualMachineError) {
+                throw (VirtualMachineError) e;
+            }
+        }
+    }
+
+    // Доріжка: черга завдань, яку в кожен момент обробляє не більше одного працівника
+    private class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void add(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                submit(this::drain);
+            }
+        }
+
+        private void drain() {
+            boolean drained = false;
             try {
-                Runnable task = taskQueue.poll(1, TimeUnit.SECONDS);
-                if (task != null) {
-                    task.run();
+                do {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        runTask(task);
+                    }
+                    scheduled.set(false);
+                } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+                drained = true;
+            } finally {
+                if (!drained) {
+                    // Завдання кинуло VirtualMachineError: доріжка звільняється, а решта її завдань виконується новим запуском
+                    scheduled.set(false);
+                    if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                        submit(this::drain);
+                    }
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
         }
     }
-    
-    public void stopWorker() {
-        isStopped = true;
-    }
 }
 
 // Головний клас програми
 public class CalculationResults {
+    private static final String RESULTS_LANE = "results"; // Доріжка для дій, що змінюють або читають результати
+    
     public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
+        RunningStatisticsTest.runTests(); // Запуск тестів
+        // Пакетний режим (--batch): сценарій зі stdin без меню та підказок, вивід скидається блоками
+        boolean interactive = !(args.length > 0 && args[0].equals("--batch"));
+        CommandInput input;
+        if (interactive) {
+            input = new ScannerCommandInput(new Scanner(System.in));
+        } else {
+            input = new BufferedCommandReader(System.in, Charset.defaultCharset());
+            useBlockOutput();
+        }
         CalculationResultsManager manager = CalculationResultsManager.getInstance();
-        WorkerThread worker = new WorkerThread();
+        WorkerPool worker = new WorkerPool(Runtime.getRuntime().availableProcessors());
         
-        while (true) {
-            System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Скасувати 5) Аналіз 6) Вийти");
-            int choice = scanner.nextInt();
+        try {
+            while (true) {
+                if (interactive) {
+                    System.out.println("Виберіть операцію: 1) Додавання 2) Множення 3) Показати результати 4) Скасувати 5) Аналіз 6) Вийти 7) Показати діапазон");
+                }
+                int choice = interactive || input.hasNext() ? input.nextInt() : 6; // Кінець сценарію - вихід
             
-            if (choice == 6) {
-                worker.stopWorker();
-                try {
-                    worker.join(); // Чекаємо завершення WorkerThread
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                if (choice == 6) {
+                    worker.stopWorker(); // Чекаємо виконання всіх доданих завдань
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    System.out.println("Програма завершена.");
+                    System.out.flush();
+                    System.exit(0);
                 }
-                scanner.close();
-                System.out.println("Програма завершена.");
-                System.exit(0);
-            }
             
-            if (choice == 3) {
-                worker.addTask(manager::displayResults);
-                continue;
-            }
+                if (choice == 3) {
+                    worker.addTask(RESULTS_LANE, manager::displayResults);
+                    continue;
+                }
             
-            if (choice == 4) {
-                worker.addTask(manager::undoLastOperation);
-                continue;
-            }
+                if (choice == 4) {
+                    worker.addTask(RESULTS_LANE, manager::undoLastOperation);
+                    continue;
+                }
             
-            if (choice == 5) {
-                worker.addTask(() -> {
-                    List<Double> values = manager.getResultValues();
-                    System.out.println("Мінімум: " + values.parallelStream().min(Double::compare).orElse(Double.NaN));
-                    System.out.println("Максимум: " + values.parallelStream().max(Double::compare).orElse(Double.NaN));
-                    System.out.println("Середнє: " + values.parallelStream().mapToDouble(d -> d).average().orElse(Double.NaN));
-                });
-                continue;
-            }
+                if (choice == 7) {
+                    if (interactive) {
+                        System.out.println("Введіть номер першого рядка та кількість рядків:");
+                    }
+                    int first = input.nextInt();
+                    int count = input.nextInt();
+                    worker.addTask(RESULTS_LANE, () -> manager.displayResults(first - 1, count));
+                    continue;
+                }
+            
+                if (choice == 5) {
+                    // Статистика підтримується інкрементально, тому виводиться одразу в порядку доріжки
+                    worker.addTask(RESULTS_LANE, manager::displayStatistics);
+                    continue;
+                }
             
-            System.out.println("Введіть два числа:");
-            double a = scanner.nextDouble();
-            double b = scanner.nextDouble();
+                if (interactive) {
+                    System.out.println("Введіть два числа:");
+                }
+                double a = input.nextDouble();
+                double b = input.nextDouble();
             
-            MathOperation operation = (choice == 1) ? new Addition() : new Multiplication();
-            String result = operation.formatResult(a, b);
+                MathOperation operation = (choice == 1) ? new Addition() : new Multiplication();
             
-            worker.addTask(() -> manager.addResult(result));
-            worker.addTask(() -> System.out.println("Результат: \n" + result));
+                worker.addTask(RESULTS_LANE, () -> manager.addResult(operation, a, b));
+                worker.addTask(RESULTS_LANE, () -> System.out.println("Результат: \n" + operation.formatResult(a, b)));
+            }
+        } finally {
+            if (!interactive) {
+                // Сценарій міг обірватися винятком: дочекаємося доданих завдань і скинемо буфер виводу
+                worker.stopWorker();
+                System.out.flush();
+            }
         }
     }
+
+    // Пакетний режим: вивід накопичується у великому буфері й скидається блоками, а не після кожного рядка
+    private static void useBlockOutput() {
+        Charset charset = Charset.forName(System.getProperty("stdout.encoding",
+                System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name())));
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false, charset));
+    }
 }
\ No newline at end of file
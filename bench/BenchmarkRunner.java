@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.DoubleSupplier;
+
+// Мікробенчмарк без залежностей: прогрів, кілька вимірювань, медіана в нс на операцію.
+// Результати порівнюються з базовим файлом (назва<TAB>нс/оп), а якщо його немає - записуються в нього.
+// Бенчмарки робіт (ComputationBenchmark, CalculationBenchmark, CollectionBenchmark, PersonBenchmark)
+// лежать поруч у bench/ і компілюються разом із джерелами своєї роботи, тож самі роботи від них не залежать.
+// Запуск - з кореня репозиторію (команда в заголовку кожного бенчмарку); базові результати,
+// з якими порівнюються нові вимірювання, зберігаються в bench/baseline/.
+public class BenchmarkRunner {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 7;
+    static volatile double sink; // Запобігає видаленню обчислень JIT-компілятором
+
+    private final Map<String, Double> results = new LinkedHashMap<>();
+    final int[] sizes;
+    private final Path baseline;
+
+    // Аргументи: [базовий файл] [розміри через кому]
+    BenchmarkRunner(String[] args, String defaultBaseline) {
+        baseline = Paths.get(args.length > 0 ? args[0] : defaultBaseline);
+        sizes = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1_000, 100_000};
+    }
+
+    // body виконує operations операцій і повертає значення, яке "поглинається" у sink
+    public void run(String name, int operations, DoubleSupplier body) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += body.getAsDouble();
+        }
+        double[] samples = new double[MEASURE_ROUNDS];
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += body.getAsDouble();
+            samples[i] = (System.nanoTime() - start) / (double) operations;
+        }
+        Arrays.sort(samples);
+        double median = samples[MEASURE_ROUNDS / 2];
+        results.put(name, median);
+        System.out.printf(Locale.ROOT, "%-55s %12.2f ns/op%n", name, median);
+    }
+
+    public void finish() throws IOException {
+        if (!Files.exists(baseline)) {
+            List<String> lines = new ArrayList<>();
+            results.forEach((name, value) -> lines.add(name + "\t" + String.format(Locale.ROOT, "%.2f", value)));
+            Files.write(baseline, lines);
+            System.out.println("Базовий файл створено: " + baseline);
+            return;
+        }
+        System.out.println("Порівняння з " + baseline + ":");
+        for (String line : Files.readAllLines(baseline)) {
+            String[] parts = line.split("\t");
+            Double current = parts.length == 2 ? results.get(parts[0]) : null;
+            if (current != null) {
+                double previous = Double.parseDouble(parts[1]);
+                System.out.printf(Locale.ROOT, "%-55s %12.2f -> %12.2f (%+.1f%%)%n",
+                        parts[0], previous, current, (current - previous) * 100 / previous);
+            }
+        }
+    }
+}
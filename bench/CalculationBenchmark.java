@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.DoubleSupplier;
+
+// Бенчмарки Pr4/Task3: calculate і formatResult кожної операції, збереження та завантаження результатів.
+// Компілюється разом із джерелами роботи (з кореня репозиторію):
+//   javac -encoding UTF-8 -d out/Pr4-Task3 Pr4/Task3/*.java bench/BenchmarkRunner.java bench/CalculationBenchmark.java
+//   java -cp out/Pr4-Task3 CalculationBenchmark [базовий файл] [розміри через кому]
+public class CalculationBenchmark {
+    private interface IoBody {
+        double run() throws IOException, ClassNotFoundException;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(args, "bench/baseline/results.txt");
+        MathOperation[] operations = MathOperationRegistry.all().toArray(new MathOperation[0]);
+        Random random = new Random(42);
+        Path legacyFile = Files.createTempFile("results", ".ser");
+        Path binaryFile = Files.createTempFile("results", ".bin");
+        
+        try {
+            for (int size : runner.sizes) {
+                double[] a = random.doubles(size, -1000, 1000).toArray();
+                double[] b = random.doubles(size, -1000, 1000).toArray();
+                for (MathOperation operation : operations) {
+                    String suffix = " " + operation.getClass().getSimpleName() + " n=" + size;
+                    runner.run("calculate" + suffix, size, () -> {
+                        double sum = 0;
+                        for (int i = 0; i < size; i++) {
+                            sum += operation.calculate(a[i], b[i]);
+                        }
+                        return sum;
+                    });
+                    runner.run("formatResult" + suffix, size, () -> {
+                        double length = 0;
+                        for (int i = 0; i < size; i++) {
+                            length += operation.formatResult(a[i], b[i]).length();
+                        }
+                        return length;
+                    });
+                }
+                
+                CalculationResultsManager manager = new CalculationResultsManager();
+                for (int i = 0; i < size; i++) {
+                    manager.addResult(operations[i % operations.length], a[i], b[i]);
+                }
+                String legacy = legacyFile.toString();
+                String binary = binaryFile.toString();
+                runner.run("serialize (List<String>) n=" + size, size, io(() -> {
+                    manager.serialize(legacy);
+                    return Files.size(legacyFile);
+                }));
+                runner.run("deserialize (List<String>) n=" + size, size, io(() -> {
+                    new CalculationResultsManager().deserialize(legacy);
+                    return 1;
+                }));
+                runner.run("serializeBinary n=" + size, size, io(() -> {
+                    manager.serializeBinary(binary);
+                    return Files.size(binaryFile);
+                }));
+                runner.run("deserializeBinary n=" + size, size, io(() -> {
+                    new CalculationResultsManager().deserializeBinary(binary);
+                    return 1;
+                }));
+            }
+        } finally {
+            Files.deleteIfExists(legacyFile);
+            Files.deleteIfExists(binaryFile);
+        }
+        runner.finish();
+    }
+    
+    private static DoubleSupplier io(IoBody body) {
+        return () -> {
+            try {
+                return body.run();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
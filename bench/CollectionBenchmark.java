@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Бенчмарки паралельної обробки колекцій Pr6/Task1.
+// Компілюється разом із джерелами роботи (з кореня репозиторію):
+//   javac -encoding UTF-8 -d out/Pr6-Task1 Pr6/Task1/*.java bench/BenchmarkRunner.java bench/CollectionBenchmark.java
+//   java -cp out/Pr6-Task1 CollectionBenchmark [базовий файл] [розміри через кому]
+public class CollectionBenchmark {
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(args, "bench/baseline/collections.txt");
+        Random random = new Random(42);
+        for (int size : runner.sizes) {
+            List<Double> numbers = random.doubles(size).boxed().collect(Collectors.toList());
+            ParallelCollectionProcessor processor = new ParallelCollectionProcessor(numbers);
+            runner.run("findMin n=" + size, size, processor::findMin);
+            runner.run("findMax n=" + size, size, processor::findMax);
+            runner.run("calculateAverage n=" + size, size, processor::calculateAverage);
+            runner.run("filterGreaterThan n=" + size, size, () -> processor.filterGreaterThan(0.5).size());
+            
+            double[] primitives = numbers.stream().mapToDouble(Double::doubleValue).toArray();
+            double[] filtered = new double[size];
+            PrimitiveCollectionProcessor primitiveProcessor = new PrimitiveCollectionProcessor(primitives);
+            runner.run("primitive statistics n=" + size, size, () -> primitiveProcessor.statistics().getVariance());
+            runner.run("primitive filterGreaterThan n=" + size, size, () -> primitiveProcessor.filterGreaterThan(0.5, filtered));
+        }
+        ExecutionPlanner.shared().shutdown();
+        runner.finish();
+    }
+}
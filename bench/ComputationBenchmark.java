@@ -0,0 +1,55 @@
+import java.io.IOException;
+import java.util.*;
+
+// Бенчмарки обчислень Pr4/Task1: фабрики + compute(), performComputation, performBatch і CompiledExpression.
+// Компілюється разом із джерелами роботи (з кореня репозиторію):
+//   javac -encoding UTF-8 -d out/Pr4-Task1 Pr4/Task1/*.java bench/BenchmarkRunner.java bench/ComputationBenchmark.java
+//   java -cp out/Pr4-Task1 ComputationBenchmark [базовий файл] [розміри через кому]
+public class ComputationBenchmark {
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(args, "bench/baseline/computation.txt");
+        Map<String, ComputationFactory> factories = new LinkedHashMap<>();
+        for (String symbol : ComputationRegistry.symbols()) {
+            factories.put(symbol, ComputationRegistry.get(symbol));
+        }
+        Random random = new Random(42);
+        
+        for (int size : runner.sizes) {
+            double[] params1 = random.doubles(size, -1000, 1000).toArray();
+            double[] params2 = random.doubles(size, -1000, 1000).toArray();
+            double[] out = new double[size];
+            for (Map.Entry<String, ComputationFactory> entry : factories.entrySet()) {
+                ComputationFactory factory = entry.getValue();
+                String suffix = " " + entry.getKey() + " n=" + size;
+                runner.run("createComputation+compute" + suffix, size, () -> {
+                    double sum = 0;
+                    for (int i = 0; i < size; i++) {
+                        ComputationData computation = factory.createComputation(params1[i], params2[i]);
+                        computation.compute();
+                        sum += computation.getResult();
+                    }
+                    return sum;
+                });
+                runner.run("performComputation" + suffix, size, () -> {
+                    ComputationProcessor processor = new ComputationProcessor(factory);
+                    double sum = 0;
+                    for (int i = 0; i < size; i++) {
+                        sum += processor.performComputation(params1[i], params2[i]);
+                    }
+                    return sum;
+                });
+                runner.run("performBatch" + suffix, size, () -> {
+                    new ComputationProcessor(factory).performBatch(params1, params2, out);
+                    return out[size - 1];
+                });
+            }
+            double[][] columns = { params1, params2, params1, params2 };
+            CompiledExpression expression = CompiledExpression.compile("(a + b) * c / d");
+            runner.run("CompiledExpression (a + b) * c / d n=" + size, size, () -> {
+                expression.evaluate(columns, out, size);
+                return out[size - 1];
+            });
+        }
+        runner.finish();
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+// Бенчмарки Pr6/Task2: серіалізація списку осіб і пропускна здатність пулу WorkerPool.
+// Компілюється разом із джерелами роботи (з кореня репозиторію):
+//   javac -encoding UTF-8 -d out/Pr6-Task2 Pr6/Task2/*.java bench/BenchmarkRunner.java bench/PersonBenchmark.java
+//   java -cp out/Pr6-Task2 PersonBenchmark [базовий файл] [розміри через кому]
+public class PersonBenchmark {
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(args, "bench/baseline/persons.txt");
+        for (int size : runner.sizes) {
+            List<Person> persons = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                persons.add(new Person("Person" + i, i % 100, "secret"));
+            }
+            byte[] serialized = writePersons(persons);
+            runner.run("writeObject(List<Person>) n=" + size, size, () -> writePersons(persons).length);
+            runner.run("readObject(List<Person>) n=" + size, size, () -> readPersons(serialized).size());
+            runner.run("WorkerPool addTask n=" + size, size, () -> drainThroughWorkers(size, null));
+            runner.run("WorkerPool addTask(lane) n=" + size, size, () -> drainThroughWorkers(size, "lane"));
+        }
+        runner.finish();
+    }
+
+    private static byte[] writePersons(List<Person> persons) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(persons);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Person> readPersons(byte[] serialized) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (List<Person>) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double drainThroughWorkers(int tasks, String lane) {
+        WorkerPool workers = new WorkerPool(Runtime.getRuntime().availableProcessors());
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            if (lane == null) {
+                workers.addTask(done::countDown);
+            } else {
+                workers.addTask(lane, done::countDown);
+            }
+        }
+        workers.stopWorker();
+        return done.getCount();
+    }
+}